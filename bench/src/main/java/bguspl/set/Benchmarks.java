@@ -0,0 +1,108 @@
+package bguspl.set;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * The setup shared by the benchmarks: configurations with logging, freezes and table delays off, and a user interface
+ * that draws nothing.
+ */
+final class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    /**
+     * @return - a logger that writes nothing.
+     */
+    static Logger silentLogger() {
+        Logger logger = Logger.getLogger("BenchmarkLogger");
+        logger.setUseParentHandlers(false);
+        return logger;
+    }
+
+    /**
+     * @param settings - more properties, as name and value pairs.
+     * @return - a configuration with logging off, no freezes and no table delay.
+     */
+    static Config config(Logger logger, int humanPlayers, int computerPlayers, String... settings) {
+        Properties properties = new Properties();
+        for (int i = 0; i + 1 < settings.length; i += 2)
+            properties.setProperty(settings[i], settings[i + 1]);
+        properties.setProperty("LogLevel", Level.OFF.getName());
+        properties.setProperty("HumanPlayers", Integer.toString(humanPlayers));
+        properties.setProperty("ComputerPlayers", Integer.toString(computerPlayers));
+        properties.setProperty("TurnTimeoutSeconds", "0");
+        properties.setProperty("PointFreezeSeconds", "0");
+        properties.setProperty("PenaltyFreezeSeconds", "0");
+        properties.setProperty("TableDelaySeconds", "0");
+        return new Config(logger, properties);
+    }
+
+    /**
+     * @return - the environment of a game with a single human player and the default deck.
+     */
+    static Env env() {
+        Logger logger = silentLogger();
+        Config config = config(logger, 1, 0);
+        return new Env(logger, config, new SilentUserInterface(), new UtilImpl(config));
+    }
+
+    /**
+     * @return - all the cards of the deck, in increasing order.
+     */
+    static List<Integer> deck(Config config) {
+        return IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+    }
+
+    /**
+     * A user interface that draws nothing, and counts the dealer's verdicts (every point or penalty sets the player's
+     * freeze time once when freezes are disabled).
+     */
+    static class SilentUserInterface implements UserInterface {
+
+        volatile long verdicts;
+
+        @Override
+        public void placeCard(int card, int slot) {}
+
+        @Override
+        public void removeCard(int slot) {}
+
+        @Override
+        public void placeToken(int player, int slot) {}
+
+        @Override
+        public void removeTokens() {}
+
+        @Override
+        public void removeTokens(int slot) {}
+
+        @Override
+        public void removeToken(int player, int slot) {}
+
+        @Override
+        public void setCountdown(long millies, boolean warn) {}
+
+        @Override
+        public void setElapsed(long millies) {}
+
+        @Override
+        public synchronized void setFreeze(int player, long millies) {
+            ++verdicts;
+        }
+
+        @Override
+        public void setScore(int player, int score) {}
+
+        @Override
+        public void announceWinner(int[] players) {}
+
+        @Override
+        public void dispose() {}
+    }
+}
@@ -0,0 +1,84 @@
+package bguspl.set;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of committing a claim on a full board, the way the dealer does: the cards of the claim are replaced
+ * from the deck as a single change, and the dealer checks that a set is left on the table. The table counts the sets
+ * through every card it places or removes, so the cost grows with the number of cards on the board.
+ * The deck has 3^8 cards, so boards of every size are filled from the same deck, and every board is run both in the
+ * default mode and in huge-board mode.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClaimCommitBenchmark {
+
+    /**
+     * The rows and columns of the board (12 to 4096 slots).
+     */
+    @Param({"3x4", "8x8", "16x16", "32x32", "64x64"})
+    public String board;
+
+    /**
+     * The value of HugeBoard.
+     */
+    @Param({"false", "true"})
+    public boolean hugeBoard;
+
+    private Table table;
+    private int tableSize;
+
+    /**
+     * The cards that are not on the table, in the order they are dealt.
+     */
+    private int[] spare;
+    private int[] slots;
+    private int[] cards;
+    private long dealt;
+
+    @Setup
+    public void setup() {
+        String[] size = board.split("x");
+        Config config = Benchmarks.config(Benchmarks.silentLogger(), 1, 0, "Rows", size[0], "Columns", size[1],
+                "FeatureCount", "8", "HugeBoard", Boolean.toString(hugeBoard));
+        Env env = new Env(Benchmarks.silentLogger(), config, new Benchmarks.SilentUserInterface(), new UtilImpl(config));
+        table = new Table(env);
+        tableSize = config.tableSize;
+        for (int slot = 0; slot < tableSize; ++slot)
+            table.placeCard(slot, slot);
+
+        spare = IntStream.range(tableSize, config.deckSize).toArray();
+        slots = new int[config.featureSize];
+        cards = new int[config.featureSize];
+    }
+
+    @Benchmark
+    public boolean commit() {
+        for (int j = 0; j < slots.length; ++j)
+            slots[j] = (int) ((dealt + j) % tableSize);
+        for (int j = 0; j < slots.length; ++j) {
+            int position = (int) (dealt++ % spare.length);
+            cards[j] = spare[position];
+            spare[position] = table.cardAt(slots[j]);
+        }
+        table.replaceCards(slots, slots.length, cards, cards.length);
+        return table.hasSet();
+    }
+}
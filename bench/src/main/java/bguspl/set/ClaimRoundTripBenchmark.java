@@ -0,0 +1,78 @@
+package bguspl.set;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of claims (from the final key press to the dealer's verdict) while the given number of
+ * computer players claim at the same time. Every operation plays a whole game with no freezes and no table delay, and
+ * the claims are reported as the verdicts counter.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClaimRoundTripBenchmark {
+
+    /**
+     * The number of computer players (each one a player thread and an AI thread).
+     */
+    @Param({"1", "2", "4", "8", "16", "32", "64"})
+    public int players;
+
+    private Config config;
+
+    /**
+     * The verdicts the dealer gave in an iteration, reported per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Claims {
+
+        public long verdicts;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            verdicts = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        config = Benchmarks.config(Benchmarks.silentLogger(), 0, players);
+    }
+
+    /**
+     * Plays a whole game between computer players.
+     */
+    @Benchmark
+    public void playGame(Claims claims) throws InterruptedException {
+        Benchmarks.SilentUserInterface ui = new Benchmarks.SilentUserInterface();
+        Env env = new Env(Benchmarks.silentLogger(), config, ui, new UtilImpl(config));
+        Table table = new Table(env);
+        Player[] computers = new Player[config.players];
+        Dealer dealer = new Dealer(env, table, computers);
+        for (int i = 0; i < computers.length; i++)
+            computers[i] = new Player(env, dealer, table, i, false);
+
+        Thread dealerThread = new Thread(dealer, "dealer");
+        dealerThread.start();
+        dealerThread.join();
+        claims.verdicts += ui.verdicts;
+    }
+}
@@ -0,0 +1,49 @@
+package bguspl.set;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of drawing a random card from a full deck and returning it, which should not depend on the size of
+ * the deck.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeckBenchmark {
+
+    /**
+     * The feature count of the deck (81 to 6561 cards).
+     */
+    @Param({"4", "6", "8"})
+    public int featureCount;
+
+    private Deck deck;
+
+    @Setup
+    public void setup() {
+        Config config = Benchmarks.config(Benchmarks.silentLogger(), 1, 0, "FeatureCount", Integer.toString(featureCount));
+        deck = new Deck(config.deckSize);
+    }
+
+    @Benchmark
+    public int drawAdd() {
+        int card = deck.draw();
+        deck.add(card);
+        return card;
+    }
+}
@@ -0,0 +1,98 @@
+package bguspl.set;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the changes to the cards on the table with no table delay, and of the key presses of a player (applied
+ * the way the dealer applies them).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableBenchmark {
+
+    private Config config;
+
+    /**
+     * An empty table, for the deal benchmarks.
+     */
+    private Table table;
+
+    /**
+     * A full table with a dealer and a human player, for the key press benchmark.
+     */
+    private Table fullTable;
+    private Dealer dealer;
+    private Player player;
+
+    private int[] cards;
+    private int[] slots;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Env env = Benchmarks.env();
+        config = env.config;
+        table = new Table(env);
+
+        fullTable = new Table(env);
+        for (int slot = 0; slot < config.tableSize; ++slot)
+            fullTable.placeCard(slot, slot);
+        Player[] players = new Player[config.players];
+        dealer = new Dealer(env, fullTable, players);
+        player = players[0] = new Player(env, dealer, fullTable, 0, true);
+
+        cards = new int[config.tableSize];
+        slots = new int[config.tableSize];
+        for (int slot = 0; slot < config.tableSize; ++slot)
+            slots[slot] = slot;
+    }
+
+    @Benchmark
+    public int placeCardRemoveCard() {
+        int slot = next % config.tableSize;
+        table.placeCard(next % config.deckSize, slot);
+        table.removeCard(slot);
+        ++next;
+        return table.countCards();
+    }
+
+    /**
+     * A whole table is dealt and collected per operation.
+     */
+    @Benchmark
+    public int placeCardsRemoveCards() {
+        for (int slot = 0; slot < cards.length; ++slot)
+            cards[slot] = (next + slot) % config.deckSize;
+        table.placeCards(cards, slots);
+        table.removeCards(slots);
+        ++next;
+        return table.countCards();
+    }
+
+    /**
+     * Every slot is pressed twice in a row (place and remove a token), so no claim is ever made. The dealer is not
+     * running, so each press is applied here, the way the dealer applies it.
+     */
+    @Benchmark
+    public int keyPressed() {
+        player.keyPressed((next >> 1) % config.tableSize);
+        dealer.applyCommands();
+        ++next;
+        return fullTable.countTokens(player.id);
+    }
+}
@@ -0,0 +1,97 @@
+package bguspl.set;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the set checks and searches of UtilImpl, on the default deck of 81 cards.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilBenchmark {
+
+    private Config config;
+    private Util util;
+    private List<Integer> deck;
+    private List<Integer> tableCards;
+    private int[][] sets;
+
+    /**
+     * A bitmap of the whole deck (the dealer's cards in the game, at the start of a game).
+     */
+    private long[] deckBits;
+
+    /**
+     * The next set and the next card to use, so every operation works on different cards.
+     */
+    private int next;
+    private int nextCard;
+
+    @Setup
+    public void setup() {
+        Env env = Benchmarks.env();
+        config = env.config;
+        util = env.util;
+        deck = Benchmarks.deck(config);
+        tableCards = deck.subList(0, config.tableSize);
+        sets = util.findSets(deck, Integer.MAX_VALUE).toArray(new int[0][]);
+        deckBits = new long[SetIndex.words(config.deckSize)];
+        for (int card : deck)
+            deckBits[card >>> 6] |= 1L << card;
+    }
+
+    private int[] nextSet() {
+        int[] set = sets[next];
+        next = next + 1 == sets.length ? 0 : next + 1;
+        return set;
+    }
+
+    @Benchmark
+    public boolean testSet() {
+        return util.testSet(nextSet());
+    }
+
+    @Benchmark
+    public int completeSet() {
+        return util.completeSet(nextSet());
+    }
+
+    @Benchmark
+    public List<int[]> findSetsTable() {
+        return util.findSets(tableCards, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<int[]> findSetsDeck() {
+        return util.findSets(deck, Integer.MAX_VALUE);
+    }
+
+    /**
+     * The update of the dealer's count of the sets left, per scored card.
+     */
+    @Benchmark
+    public int countSetsWithDeck() {
+        nextCard = nextCard + 1 == config.deckSize ? 0 : nextCard + 1;
+        return util.countSetsWith(nextCard, deckBits);
+    }
+
+    @Benchmark
+    public int[][] cardsToFeatures() {
+        return util.cardsToFeatures(nextSet());
+    }
+}
@@ -0,0 +1,275 @@
+package bguspl.set;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Allocation budget checks for the game's hot paths.
+ * Every path is warmed up (so the JIT has compiled it) and then run many times while the allocated bytes of the
+ * current thread are counted. A check fails if its path allocates more than its budget per operation in every one of
+ * MEASURED_ROUNDS rounds, so a change that adds garbage to those paths is caught before it shows up as GC pauses in a
+ * game, while a few stray bytes of a single round (e.g. a deoptimization) do not fail the build.
+ */
+class AllocationBudgetsTest {
+
+    private static final int WARMUP_OPERATIONS = 200_000;
+    private static final int MEASURED_OPERATIONS = 100_000;
+    private static final int MEASURED_ROUNDS = 5;
+
+    /**
+     * Results are folded into this field, so the JIT cannot drop the checked code.
+     */
+    static volatile long sink;
+
+    /**
+     * A checked operation.
+     */
+    interface Operation {
+
+        /**
+         * Runs the operation a number of times.
+         *
+         * @param times - the number of times to run.
+         * @return - a value that depends on the results (for the sink).
+         */
+        long run(int times);
+    }
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private Config config;
+    private Util util;
+    private UserInterface ui;
+    private Table table;
+    private Dealer dealer;
+    private Player player;
+    private int[][] sets;
+
+    @BeforeEach
+    void setup() {
+        threads.setThreadAllocatedMemoryEnabled(true);
+        Logger logger = Benchmarks.silentLogger();
+        config = Benchmarks.config(logger, 1, 0);
+        util = new UtilImpl(config);
+        ui = new UserInterfaceDecorator(logger, util, new Benchmarks.SilentUserInterface());
+        Env env = new Env(logger, config, ui, util);
+
+        table = new Table(env);
+        for (int slot = 0; slot < config.tableSize; ++slot)
+            table.placeCard(slot, slot);
+        Player[] players = new Player[config.players];
+        dealer = new Dealer(env, table, players);
+        player = players[0] = new Player(env, dealer, table, 0, true);
+
+        List<Integer> deck = Benchmarks.deck(config);
+        sets = util.findSets(deck, Integer.MAX_VALUE).toArray(new int[0][]);
+    }
+
+    @Test
+    void testSet() {
+        assertBudget("UtilImpl.testSet", 0, times -> {
+            long legal = 0;
+            for (int i = 0; i < times; ++i)
+                if (util.testSet(sets[i % sets.length])) ++legal;
+            return legal;
+        });
+    }
+
+    @Test
+    void completeSet() {
+        assertBudget("UtilImpl.completeSet", 0, times -> {
+            long cards = 0;
+            for (int i = 0; i < times; ++i)
+                cards += util.completeSet(sets[i % sets.length]);
+            return cards;
+        });
+    }
+
+    @Test
+    void countSetsWith() {
+        // the bitmap of the whole deck, as the dealer's cards in the game at the start of a game
+        long[] deckBits = new long[SetIndex.words(config.deckSize)];
+        for (int card = 0; card < config.deckSize; ++card)
+            deckBits[card >>> 6] |= 1L << card;
+        assertBudget("UtilImpl.countSetsWith", 0, times -> {
+            long sets = 0;
+            for (int i = 0; i < times; ++i)
+                sets += util.countSetsWith(i % config.deckSize, deckBits);
+            return sets;
+        });
+    }
+
+    @Test
+    void deckDrawAndAdd() {
+        Deck deck = new Deck(config.deckSize);
+        assertBudget("Deck.draw+add", 0, times -> {
+            long cards = 0;
+            for (int i = 0; i < times; ++i) {
+                int card = deck.draw();
+                deck.add(card);
+                cards += card;
+            }
+            return cards;
+        });
+    }
+
+    @Test
+    void keyPressed() {
+        assertBudget("Player.keyPressed", 0, times -> {
+            // every slot is pressed twice in a row (place and remove a token), so no claim is ever made
+            for (int i = 0; i < times; ++i) {
+                player.keyPressed((i >> 1) % config.tableSize);
+                dealer.applyCommands();
+            }
+            return player.getScore();
+        });
+    }
+
+    /**
+     * A legal claim is made by key presses and committed by the dealer (press, holdClaim, checkSet, commitBatch). Every
+     * claim takes cards out of the game, so the deck has 3^8 cards and the board 64 slots: it lasts for the warmup and
+     * every measured round (2000 claims at most), and usually has a set (the table is redealt when it has none).
+     */
+    @Test
+    void claimCommit() {
+        Logger logger = Benchmarks.silentLogger();
+        Config config = Benchmarks.config(logger, 1, 0, "Rows", "8", "Columns", "8", "FeatureCount", "8");
+        Util util = new UtilImpl(config);
+        Env env = new Env(logger, config, new UserInterfaceDecorator(logger, util, new Benchmarks.SilentUserInterface()),
+                util);
+        Table table = new Table(env);
+        Player[] players = new Player[config.players];
+        Dealer dealer = new Dealer(env, table, players);
+        Player player = players[0] = new Player(env, dealer, table, 0, true);
+        dealer.placeCardOnEmptySlots();
+
+        long[] cards = new long[SetIndex.words(config.deckSize)];
+        int[] slots = new int[config.tableSize], set = new int[config.featureSize];
+        assertBudget("Dealer.checkSet (claim commit)", 0, 1_000, 200, times -> {
+            for (int i = 0; i < times; ++i) {
+                while (!findSet(table, util, cards, slots, set)) {
+                    dealer.removeAllCardsFromTable();
+                    dealer.placeCardOnEmptySlots();
+                }
+                for (int card : set)
+                    player.keyPressed(table.slotOf(card));
+                if (!dealer.checkSet()) throw new AssertionError("a legal claim was not committed");
+                player.myFreezeState = -1; //the point is served, as the player thread does
+                player.readyForCheck = false;
+            }
+            return player.getScore();
+        });
+    }
+
+    /**
+     * Finds a set among the cards on the table, without allocating.
+     *
+     * @return - true iff a set was found (its cards are in set).
+     */
+    private static boolean findSet(Table table, Util util, long[] cards, int[] slots, int[] set) {
+        table.cardsOnTable(cards);
+        int count = table.occupiedSlots(slots);
+        for (int i = 0; i < count; ++i)
+            if (util.findSetWith(table.cardAt(slots[i]), cards, set)) return true;
+        return false;
+    }
+
+    @Test
+    void placeAndRemoveToken() {
+        assertBudget("Table.placeToken+removeToken", 0, times -> {
+            for (int i = 0; i < times; ++i) {
+                table.placeToken(0, i % config.tableSize);
+                table.removeToken(0, i % config.tableSize);
+            }
+            return table.countCards();
+        });
+    }
+
+    @Test
+    void toggleTokenAndRemoveTokens() {
+        assertBudget("Table.toggleToken+removeTokens", 0, times -> {
+            long placed = 0;
+            for (int i = 0; i < times; ++i) {
+                int slot = i % config.tableSize;
+                placed += table.toggleToken(0, slot, table.cardAt(slot), config.featureSize);
+                table.removeTokens(slot);
+            }
+            return placed;
+        });
+    }
+
+    @Test
+    void commandQueueOfferAndDrain() {
+        CommandQueue commands = new CommandQueue(4);
+        int[] drainedPlayers = new int[4], drainedSlots = new int[4], drainedCards = new int[4];
+        long[] drainedNanos = new long[4];
+        assertBudget("CommandQueue.offer+drain", 0, times -> {
+            long drained = 0;
+            for (int i = 0; i < times; ++i) {
+                commands.offer(i & 3, i % config.tableSize, i % config.deckSize);
+                drained += commands.drain(drainedPlayers, drainedSlots, drainedCards, drainedNanos, 4);
+            }
+            return drained;
+        });
+    }
+
+    @Test
+    void userInterfaceDecorator() {
+        assertBudget("UserInterfaceDecorator", 0, times -> {
+            for (int i = 0; i < times; ++i) {
+                int slot = i % config.tableSize;
+                ui.placeCard(i % config.deckSize, slot);
+                ui.placeToken(0, slot);
+                ui.removeToken(0, slot);
+                ui.removeTokens(slot);
+                ui.removeCard(slot);
+                ui.setFreeze(0, i);
+                ui.setScore(0, i);
+                ui.setElapsed(i);
+                ui.setCountdown(i, (i & 1) == 0);
+            }
+            return 0;
+        });
+    }
+
+    /**
+     * Runs an operation and checks the bytes it allocates on the current thread.
+     *
+     * @param name   - the name of the path.
+     * @param budget - the maximal number of bytes per operation.
+     */
+    private void assertBudget(String name, double budget, Operation operation) {
+        assertBudget(name, budget, WARMUP_OPERATIONS, MEASURED_OPERATIONS, operation);
+    }
+
+    /**
+     * Runs an operation and checks the bytes it allocates on the current thread, in the best of MEASURED_ROUNDS rounds.
+     *
+     * @param name     - the name of the path.
+     * @param budget   - the maximal number of bytes per operation.
+     * @param warmup   - the number of operations run before the bytes are counted.
+     * @param measured - the number of operations whose bytes are counted in each round.
+     */
+    private void assertBudget(String name, double budget, int warmup, int measured, Operation operation) {
+        long id = Thread.currentThread().getId();
+        sink += operation.run(warmup);
+
+        double best = Double.MAX_VALUE;
+        for (int round = 0; round < MEASURED_ROUNDS && best > budget; ++round) {
+            long before = threads.getThreadAllocatedBytes(id);
+            sink += operation.run(measured);
+            long allocated = threads.getThreadAllocatedBytes(id) - before;
+            best = Math.min(best, (double) allocated / measured);
+        }
+        assertTrue(best <= budget, String.format(Locale.ROOT, "%s allocates %.3f bytes/op in its best of %d rounds "
+                + "(budget %.3f)", name, best, MEASURED_ROUNDS, budget));
+    }
+}
@@ -0,0 +1,213 @@
+package bguspl.set;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded queue of the players' key presses, preallocated as a ring buffer. Any number of input threads submit
+ * presses, and the dealer alone drains and applies them, in batches and without allocating, so the dealer is the only
+ * thread that changes the table. Each entry holds the id of the player, the pressed slot, the card the player saw in
+ * it, and the time of the press.
+ *
+ * Every entry has a sequence number that tells whose turn it is: the entry at position p of the ring is free for a
+ * producer while its sequence is p, and holds a published press while its sequence is p + 1.
+ *
+ * @inv 0 <= depth() <= capacity
+ */
+public class CommandQueue {
+
+    private static final VarHandle SEQUENCES = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final int capacity;
+
+    /**
+     * The entries of the ring.
+     */
+    private final long[] sequences;
+    private final int[] players;
+    private final int[] slots;
+    private final int[] cards;
+    private final long[] submitNanos;
+
+    /**
+     * The next position for a producer, and the next position for the consumer (written by the consumer only).
+     */
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    /**
+     * The number of presses that were taken a position before the last drain started, and were not published by the time
+     * it reached them (written by the consumer only).
+     */
+    private volatile int inFlight;
+
+    /**
+     * Monitoring counters (written by the consumer only).
+     */
+    private volatile long drained;
+    private volatile long totalWaitNanos;
+    private volatile long maxWaitNanos;
+    private volatile int maxDepth;
+
+    /**
+     * The number of presses that were not queued because the queue was full (written by any producer).
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * The class constructor.
+     *
+     * @param capacity - the maximal number of pending presses.
+     */
+    public CommandQueue(int capacity) {
+        this.capacity = capacity;
+        sequences = new long[capacity];
+        for (int i = 0; i < capacity; i++)
+            sequences[i] = i;
+        players = new int[capacity];
+        slots = new int[capacity];
+        cards = new int[capacity];
+        submitNanos = new long[capacity];
+    }
+
+    /**
+     * Submits a key press (called by any thread). The time of the press is taken once its position is reserved, so a
+     * press made before a drain starts is either drained or counted by inFlight.
+     *
+     * @param player - the id of the player.
+     * @param slot   - the pressed slot.
+     * @param card   - the card the player saw in the slot.
+     * @return - true iff the press was queued (false if the queue is full).
+     */
+    public boolean offer(int player, int slot, int card) {
+        long position;
+        int entry;
+        for (;;) {
+            position = tail.get();
+            entry = (int) (position % capacity);
+            long sequence = (long) SEQUENCES.getAcquire(sequences, entry);
+            if (sequence < position) { //the press a lap ahead was not drained yet
+                dropped.incrementAndGet();
+                return false;
+            }
+            if (sequence == position && tail.compareAndSet(position, position + 1)) break;
+            Thread.onSpinWait(); //another producer took the position
+        }
+
+        players[entry] = player;
+        slots[entry] = slot;
+        cards[entry] = card;
+        submitNanos[entry] = System.nanoTime();
+        SEQUENCES.setRelease(sequences, entry, position + 1); //publishes the press
+        return true;
+    }
+
+    /**
+     * Drains the published presses, in the order of their positions, into arrays of the caller (called by the consumer
+     * only).
+     *
+     * @param toPlayers - receives the ids of the players.
+     * @param toSlots   - receives the pressed slots.
+     * @param toCards   - receives the cards the players saw in the slots.
+     * @param toNanos   - receives the times of the presses.
+     * @param max       - the maximal number of presses to drain.
+     * @return - the number of presses drained.
+     */
+    public int drain(int[] toPlayers, int[] toSlots, int[] toCards, long[] toNanos, int max) {
+        long position = head, end = tail.get();
+        int depth = (int) (end - position);
+        if (depth > maxDepth) maxDepth = depth;
+
+        long now = System.nanoTime(), waited = 0, longest = maxWaitNanos;
+        int count = 0;
+        for (; count < max; count++, position++) {
+            int entry = (int) (position % capacity);
+            if ((long) SEQUENCES.getAcquire(sequences, entry) != position + 1) break;
+
+            toPlayers[count] = players[entry];
+            toSlots[count] = slots[entry];
+            toCards[count] = cards[entry];
+            toNanos[count] = submitNanos[entry];
+            long wait = now - submitNanos[entry];
+            waited += wait;
+            if (wait > longest) longest = wait;
+
+            SEQUENCES.setRelease(sequences, entry, position + capacity); //frees the entry for the next lap
+        }
+        head = position;
+        inFlight = count < max ? (int) Math.max(end - position, 0) : 0;
+
+        if (count > 0) {
+            drained += count;
+            totalWaitNanos += waited;
+            maxWaitNanos = longest;
+        }
+        return count;
+    }
+
+    /**
+     * Checks if the next press is published, so a drain would return it (called by the consumer only). A press whose
+     * position was taken but that is not published yet does not count: its producer is still to wake the consumer.
+     *
+     * @return - true iff a press is ready to be drained.
+     */
+    public boolean isReady() {
+        long position = head;
+        return (long) SEQUENCES.getAcquire(sequences, (int) (position % capacity)) == position + 1;
+    }
+
+    /**
+     * @return - the number of presses submitted and not drained yet.
+     */
+    public int depth() {
+        return (int) (tail.get() - head);
+    }
+
+    /**
+     * @return - the number of presses that were on their way into the queue when the last drain started (they may have
+     * been made before the presses drained).
+     */
+    public int inFlight() {
+        return inFlight;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return - the largest depth seen by the consumer.
+     */
+    public int maxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @return - the number of presses drained so far.
+     */
+    public long drained() {
+        return drained;
+    }
+
+    /**
+     * @return - the number of presses dropped so far, because the queue was full.
+     */
+    public long dropped() {
+        return dropped.get();
+    }
+
+    /**
+     * @return - the total time from the drained presses being made to being drained, in nanoseconds.
+     */
+    public long totalWaitNanos() {
+        return totalWaitNanos;
+    }
+
+    /**
+     * @return - the longest time from a drained press being made to being drained, in nanoseconds.
+     */
+    public long maxWaitNanos() {
+        return maxWaitNanos;
+    }
+}
@@ -1,3 +1,5 @@
+package bguspl.set;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
@@ -34,6 +36,21 @@ public class Config {
      */
     public int deckSize;
 
+    /**
+     * Whether to search for sets in parallel (on the common fork-join pool)
+     */
+    public boolean parallelSearch;
+
+    /**
+     * The minimal number of cards to search in parallel (smaller collections are searched sequentially)
+     */
+    public int parallelSearchThreshold;
+
+    /**
+     * The maximal size (in megabytes) of the precomputed index of all the sets in the deck (0 to never build it)
+     */
+    public int setIndexMaxMegabytes;
+
     /**
      * The number of human players in the game.
      */
@@ -79,6 +96,18 @@ public class Config {
      */
     public long tableDelayMillis;
 
+    /**
+     * True iff the dealer chooses the cards it deals so that the table has a set whenever the deck allows it, instead of
+     * redealing the whole table when it has none
+     */
+    public boolean guaranteeSets;
+
+    /**
+     * The number of nanoseconds the dealer may hold a claim, waiting for claims that were made earlier and are still on
+     * their way, so that conflicting claims are decided in the order their last key was pressed
+     */
+    public long claimWindowNanos;
+
     /**
      * The number of milliseconds to pause at the end of the game before closing
      */
@@ -105,6 +134,12 @@ public class Config {
      */
     public int tableSize;
 
+    /**
+     * True iff the table is treated as a huge board, whose hints show a single set of the table rather than all of them
+     * (by default, boards of more than 64 cells)
+     */
+    public boolean hugeBoard;
+
     /**
      * The width (in pixels) of each cell
      */
@@ -194,6 +229,9 @@ public class Config {
         featureSize = Integer.parseInt(properties.getProperty("FeatureSize", "3"));
         featureCount = Integer.parseInt(properties.getProperty("FeatureCount", "4"));
         deckSize = (int) Math.pow(featureSize, featureCount);
+        parallelSearch = Boolean.parseBoolean(properties.getProperty("ParallelSearch", "True"));
+        parallelSearchThreshold = Integer.parseInt(properties.getProperty("ParallelSearchThreshold", "243"));
+        setIndexMaxMegabytes = Integer.parseInt(properties.getProperty("SetIndexMaxMegabytes", "64"));
 
         // gameplay settings
         humanPlayers = Integer.parseInt(properties.getProperty("HumanPlayers", "2"));
@@ -206,6 +244,8 @@ public class Config {
         pointFreezeMillis = (long) (Double.parseDouble(properties.getProperty("PointFreezeSeconds", "1")) * 1000.0);
         penaltyFreezeMillis = (long) (Double.parseDouble(properties.getProperty("PenaltyFreezeSeconds", "3")) * 1000.0);
         tableDelayMillis = (long) (Double.parseDouble(properties.getProperty("TableDelaySeconds", "0.1")) * 1000.0);
+        guaranteeSets = Boolean.parseBoolean(properties.getProperty("GuaranteeSets", "True"));
+        claimWindowNanos = (long) (Double.parseDouble(properties.getProperty("ClaimWindowSeconds", "0.002")) * 1e9);
         endGamePauseMillies = (long) (Double.parseDouble(properties.getProperty("EndGamePauseSeconds", "5")) * 1000.0);
 
         // ui settings
@@ -216,6 +256,7 @@ public class Config {
         rows = Integer.parseInt(properties.getProperty("Rows", "3"));
         columns = Integer.parseInt(properties.getProperty("Columns", "4"));
         tableSize = rows * columns;
+        hugeBoard = Boolean.parseBoolean(properties.getProperty("HugeBoard", Boolean.toString(tableSize > 64)));
         cellWidth = Integer.parseInt(properties.getProperty("CellWidth", "258"));
         cellHeight = Integer.parseInt(properties.getProperty("CellHeight", "167"));
         playerCellWidth = Integer.parseInt(properties.getProperty("PlayerCellWidth", "300"));
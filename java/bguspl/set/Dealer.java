@@ -0,0 +1,806 @@
+package bguspl.set;
+
+import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class manages the dealer's threads and data
+ */
+public class Dealer implements Runnable {
+
+
+    private final Env env; /*** The game environment object.*/
+
+    /*** Game entities.*/
+    private final Table table;private final Player[] players;
+
+    /*** The card ids that are left in the dealer's deck.*/
+    private final Deck deck;
+
+    /** The empty slots of the table, as a free list: the first emptyCount entries (in no particular order).*/
+    private final int[] emptySlots;
+    private int emptyCount;
+
+    /** The key presses drained from the table's command queue, to be applied (reused between drains).*/
+    private final int[] pressPlayers;
+    private final int[] pressSlots;
+    private final int[] pressCards;
+    private final long[] pressNanos;
+
+    /** The card that completes the featureSize - 1 tokens of each player to a legal set (-1 if none), worked out as the
+     * tokens are placed, and the slots and cards of the tokens it was worked out from (those of player p start at
+     * p * (featureSize - 1)). The tokens may be cleared under the player since, by a change of the cards.*/
+    private final int[] completingCards;
+    private final int[] completedSlots;
+    private final int[] completedCards;
+
+    /** The slots and cards of a player's tokens (reused between presses).*/
+    private final int[] tokenSlots;
+    private final int[] tokenCards;
+
+    /** The legal claims made by the presses applied (the slots of claim i start at i * featureSize), held
+     * until they are decided, and the order in which they are decided. A player has at most one claim at a time.*/
+    private final int[] claimPlayers;
+    private final int[] claimedSlots;
+    private final long[] claimNanos;
+    private final int[] claimOrder;
+    private int heldClaims;
+
+    /** The event that decides the held claims once the arbitration window ends (null if none was scheduled), and the
+     * time the claims started to be held.*/
+    private ScheduledFuture<?> arbitration;
+    private long heldSince;
+
+    /** Arbitration metrics: the number of times claims were held, the total and longest time they were held (in
+     * nanoseconds), and the number of claims that were decided ahead of a claim that reached the dealer before them.*/
+    private long arbitrations;
+    private long arbitrationNanos;
+    private long maxArbitrationNanos;
+    private long reorderedClaims;
+
+    /** The players and slots of the accepted claims, and the cards that refill the slots, committed as one change.*/
+    private final Player[] acceptedPlayers;
+    private final int[] batchSlots;
+    private final int[] batchCards;
+
+    /** A bitmap of the slots taken by the claims accepted in the current check.*/
+    private final long[] takenSlots;
+
+    /** The slots and cards being dealt or collected (reused between deals).*/
+    private final int[] dealSlots;
+    private final int[] dealCards;
+
+    /** A bitmap of the cards on the table, and a set found with one of them (see ensureSet).*/
+    private final long[] boardCards;
+    private final int[] setBuffer;
+
+    /** A bitmap of the cards still in the game (in the deck or on the table), and the number of legal sets among them.
+     * Only a scored card leaves the game, so the number is updated only by the sets through the cards of a scored set.*/
+    private final long[] gameCards;
+    private long setsLeft;
+
+    /** True iff game should be terminated due to an external event.*/
+    private volatile boolean terminate;
+
+    /** The single thread that runs the dealer's events, and the next reshuffle (null if none was scheduled).*/
+    private final ScheduledThreadPoolExecutor events;
+    private ScheduledFuture<?> deadline;
+
+    /** True iff a command event was submitted and did not finish draining the queue yet, and true once the game started
+     * (the presses queued before are applied by the first event that drains the queue).*/
+    private final AtomicBoolean commandPending = new AtomicBoolean();
+    private volatile boolean started;
+
+    /** The most times a command event drains the queue, before it makes way for the other events (e.g. a tick).*/
+    private static final int MAX_DRAINS = 16;
+
+    /** The number of command events that ran (a press metric, next to the ones of the queue).*/
+    private long commandEvents;
+    private boolean gameOver;
+    int sleepTime;
+
+    /**The time when the dealer needs to reshuffle the deck due to turn timeout.*/
+    private long reshuffleTime = Long.MAX_VALUE;
+    private long timerDisplay = 60000;
+    private final  int second = 1000;
+    private final int mili10 = 10;
+    private long lastUpdate;
+
+
+    public Dealer(Env env, Table table, Player[] players) {
+        sleepTime = second;
+        this.env = env;
+        this.table = table;
+        this.players = players;
+        this.terminate = false;
+        events = new ScheduledThreadPoolExecutor(1, runnable -> new Thread(runnable, "dealer-events"));
+        events.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        events.setRemoveOnCancelPolicy(true);
+        deck = new Deck(env.config.deckSize); //cards are drawn at random, so the deck is never shuffled
+        emptySlots = new int[env.config.tableSize];
+        pressPlayers = new int[table.commands.capacity()];
+        pressSlots = new int[table.commands.capacity()];
+        pressCards = new int[table.commands.capacity()];
+        pressNanos = new long[table.commands.capacity()];
+        completingCards = new int[Math.max(env.config.players, 1)];
+        Arrays.fill(completingCards, -1);
+        completedSlots = new int[completingCards.length * Math.max(env.config.featureSize - 1, 0)];
+        completedCards = new int[completedSlots.length];
+        tokenSlots = new int[env.config.featureSize];
+        tokenCards = new int[env.config.featureSize];
+        claimPlayers = new int[completingCards.length];
+        claimedSlots = new int[completingCards.length * env.config.featureSize];
+        claimNanos = new long[completingCards.length];
+        claimOrder = new int[completingCards.length];
+        acceptedPlayers = new Player[completingCards.length];
+        batchSlots = new int[env.config.tableSize];
+        batchCards = new int[env.config.tableSize];
+        takenSlots = new long[SetIndex.words(env.config.tableSize)];
+        dealSlots = new int[env.config.tableSize];
+        dealCards = new int[env.config.tableSize];
+        boardCards = new long[SetIndex.words(env.config.deckSize)];
+        setBuffer = new int[env.config.featureSize];
+        gameCards = deck.bits().clone();
+        setsLeft = countSets(env);
+        for (int i = 0; i < env.config.tableSize; i++) {
+            addEmptySlot(i);
+        }
+        //init timer settings
+        if (env.config.turnTimeoutMillis > 0)
+            reshuffleTime = env.config.turnTimeoutMillis + System.currentTimeMillis(); //minute
+        else
+            lastUpdate = System.currentTimeMillis();
+
+    }
+
+    /**
+     * The dealer thread starts here. The dealer's work is done by a single event thread, on which every event (a claim,
+     * the reshuffle deadline, a tick of the timer display and the end of the game) runs as a separate task, so the
+     * dealer never wakes up without work. The dealer thread waits for the game to end.
+     */
+    @Override
+    public void run() {
+        System.out.printf("Info: Thread %s starting.%n", Thread.currentThread().getName());
+        env.logger.info("thread " + Thread.currentThread().getName() + " starting.");
+        //start players' threads
+        for (Player player : players) {
+            new Thread(player).start();
+            synchronized (player.myKeyObj) { //waiting for player to initialize
+                if (!player.myKey) {
+                    try {
+                        player.myKeyObj.wait();
+                    } catch (InterruptedException x) { Thread.currentThread().interrupt();}
+                }
+            }
+        }
+        events.execute(this::startGame);
+        try {
+            while (!events.awaitTermination(1, TimeUnit.DAYS));
+        } catch (InterruptedException x) {Thread.currentThread().interrupt();}
+        System.out.printf("Info: Thread %s terminated.%n", Thread.currentThread().getName());
+        env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
+    }
+
+    /**
+     * Called by a player after it queued a key press. Presses that arrive before the dealer is done draining are
+     * applied by the same event, so only a press that finds the dealer idle submits one.
+     */
+    void commandQueued() {
+        if (started && commandPending.compareAndSet(false, true)) submit(this::commandEvent);
+    }
+
+    /**
+     * The first event: deals the cards and starts the deadline and the timer display.
+     */
+    private void startGame() {
+        started = true;
+        updateTimerDisplay(true); //resets the countdown / timer
+        if (shouldFinish()) {
+            finishGame();
+            return;
+        }
+        placeCardsOnTable();
+        scheduleDeadline();
+        submitTick();
+    }
+
+    /**
+     * Applies the queued key presses, and refills the table if a claim they made was accepted. The event drains the
+     * queue again while presses keep arriving (up to MAX_DRAINS times), with commandPending still set, and checks the
+     * queue once more after clearing it, since a press published before that found it set.
+     */
+    private void commandEvent() {
+        commandEvents++;
+        int drains = 0;
+        do arbitrationEvent();
+        while (++drains < MAX_DRAINS && !terminate && table.commands.isReady());
+        commandPending.set(false); //a volatile write, so the queue is not read ahead of it
+        if (table.commands.isReady()) commandQueued();
+    }
+
+    /**
+     * Decides the held claims, once the claims made before them arrived or the arbitration window ended.
+     */
+    private void arbitrationEvent() {
+        if (terminate) return;
+        if (checkSet()) { //checks for a valid set and give instructions according to the result
+            placeCardsOnTable();
+            scheduleDeadline(); //the countdown was reset
+        }
+    }
+
+    /**
+     * The turn timed out: collects the cards and deals new ones, or ends the game if no set is left.
+     */
+    private void deadlineEvent() {
+        if (terminate) return;
+        updateTimerDisplay(true);
+        removeAllCardsFromTable();
+        if (shouldFinish()) finishGame();
+        else {
+            placeCardsOnTable();
+            scheduleDeadline();
+        }
+    }
+
+    /**
+     * Updates the timer display, and schedules the next update (every second, or more often near the deadline).
+     */
+    private void tickEvent() {
+        if (terminate) return;
+        updateTimerDisplay(false);
+        submitTick();
+    }
+
+    private void submitTick() {
+        if (env.config.turnTimeoutMillis >= 0)
+            events.schedule(this::tickEvent, sleepTime, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Schedules the reshuffle at reshuffleTime, instead of the one scheduled before (if any).
+     */
+    private void scheduleDeadline() {
+        if (env.config.turnTimeoutMillis <= 0) return;
+        if (deadline != null) deadline.cancel(false);
+        deadline = events.schedule(this::deadlineEvent, reshuffleTime - System.currentTimeMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The last event: announces the winners and stops the event thread and the animator of the table (the scheduled
+     * events and the changes not shown yet are dropped).
+     */
+    private void finishGame() {
+        terminate(); //stops the players, if the game ended by itself
+        if (!gameOver) {
+            gameOver = true;
+            CommandQueue commands = table.commands;
+            env.logger.info("key presses: " + commands.drained() + " drained in " + commandEvents
+                    + " events, max depth " + commands.maxDepth() + ", mean wait "
+                    + commands.totalWaitNanos() / Math.max(commands.drained(), 1) + " ns, max wait "
+                    + commands.maxWaitNanos() + " ns, " + commands.dropped() + " dropped (queue full).");
+            env.logger.info("arbitration: " + arbitrations + " times, mean delay "
+                    + arbitrationNanos / Math.max(arbitrations, 1) + " ns, max delay " + maxArbitrationNanos + " ns, "
+                    + reorderedClaims + " claims reordered.");
+            announceWinners();
+        }
+        table.close();
+        events.shutdown();
+    }
+
+    private void submit(Runnable event) {
+        try {
+            events.execute(event);
+        } catch (RejectedExecutionException ignored) {} //the game is over
+    }
+
+    /**
+     * Called when the game should be terminated due to an external event.
+     */
+    public void terminate() {
+        if(!terminate){
+            for (int i = env.config.players - 1; i >= 0; i--) {
+                players[i].terminate();
+            }
+            terminate = true;
+            submit(this::finishGame); //the end of the game is an event of its own
+        }
+
+    }
+
+    /**
+     * Check if the game should be terminated or the game end conditions are met.
+     *
+     * @return true iff the game should be finished.
+     */
+    private boolean shouldFinish() {
+        return terminate || setsLeft == 0;
+    }
+
+    /**
+     * Counts the legal sets in the whole deck, without enumerating them unless they were indexed already.
+     * @param env - the game environment object.
+     * @return - the number of sets.
+     */
+    private static long countSets(Env env) {
+        SetIndex index = env.util.setIndex();
+        if (index != null) return index.size();
+        return env.config.featureSize < 2 ? 0 : Math.round(SetIndex.countSets(env.config));
+    }
+
+    /**
+     * Takes a scored card out of the game, with the sets it formed with the cards that are still in it.
+     * @param card - the card.
+     */
+    private void cardScored(int card) {
+        // the card leaves the bitmap before its sets are counted, like Table.cardRemoved
+        gameCards[card >>> 6] &= ~(1L << card);
+        setsLeft -= env.util.countSetsWith(card, gameCards);
+    }
+
+    /**
+     * Check if any cards can be removed from the deck and placed on the table.
+     */
+    private void placeCardsOnTable() {
+
+        table.freeze();
+
+        //places the cards, updates relevant fields
+        placeCardOnEmptySlots();
+
+        //checks if no sets remained and reshuffle\ terminate the game accordingly
+        noSetsAction();
+
+        table.unfreeze();
+    }
+
+    /**
+     * Applies the queued key presses and commits the claims they made as one batch. The dealer is the only thread that
+     * changes the table, so a held claim stays current until it is decided. Claims that overlap are resolved in the
+     * order their last key was pressed (the first claim wins, the later ones are dropped), and the cards of the accepted
+     * claims are removed and refilled as a single change of the table.
+     * While presses are on their way to the queue, the claims are held for up to claimWindowNanos after the earliest of
+     * them was made, since a press on its way may have made a claim before them.
+     * @return true iff a claim was accepted (and so the table changed).
+     */
+    boolean checkSet() {
+        int claimSize = env.config.featureSize;
+        applyCommands();
+        if (heldClaims == 0) return false;
+        if (holdClaims()) return false;
+        int claimCount = heldClaims;
+        heldClaims = 0;
+        orderClaims(claimCount);
+
+        int accepted = 0, batch = 0;
+        for (int i = 0; i < claimCount; i++) {
+            int c = claimOrder[i], from = c * claimSize;
+            Player playerToCheck = players[claimPlayers[c]];
+            if (!claimTaken(from)) {
+                takeClaim(from);
+                System.arraycopy(claimedSlots, from, batchSlots, batch, claimSize);
+                batch += claimSize;
+                acceptedPlayers[accepted++] = playerToCheck;
+                continue;
+            }
+            dropClaim(playerToCheck); //its cards are taken by an earlier claim
+        }
+        if (accepted == 0) return false;
+
+        commitBatch(batch);
+        Arrays.fill(takenSlots, 0);
+        updateTimerDisplay(true);
+
+        for (int i = 0; i < accepted; i++) {
+            Player playerToCheck = acceptedPlayers[i];
+            synchronized (playerToCheck) {
+                playerToCheck.score++;
+                playerToCheck.myFreezeState = 1;
+                playerToCheck.notifyAll();
+            }
+            acceptedPlayers[i] = null;
+        }
+        return true;
+    }
+
+    /**
+     * Applies the queued key presses, in the order they were queued. A press places or removes a token of its player
+     * (only if the card the player saw is still in the slot), and the press that places the last token of a claim makes
+     * the claim: a legal claim is held until it is decided, and an illegal one is penalized right away. Presses of a
+     * player whose claim waits for a verdict are dropped.
+     */
+    void applyCommands() {
+        int count = table.commands.drain(pressPlayers, pressSlots, pressCards, pressNanos, pressPlayers.length);
+        for (int i = 0; i < count; i++) {
+            Player player = players[pressPlayers[i]];
+            if (!player.readyForCheck) press(player, pressSlots[i], pressCards[i], pressNanos[i]);
+            player.pressApplied();
+        }
+        for (int i = 0; i < count; i++)
+            players[pressPlayers[i]].pressesDrained(); //the AI players press again only after the whole drain
+    }
+
+    /**
+     * Applies a key press of a player.
+     * @param player - the player.
+     * @param slot   - the pressed slot.
+     * @param card   - the card the player saw in the slot.
+     * @param nanos  - the time of the press.
+     */
+    private void press(Player player, int slot, int card, long nanos) {
+        int featureSize = env.config.featureSize;
+        int placed = table.toggleToken(player.id, slot, card, featureSize);
+        int tokens = placed == -1 ? table.countTokens(player.id) : placed;
+
+        if (tokens == featureSize - 1) completingCards[player.id] = completingCard(player.id);
+        else if (placed == featureSize) {
+            boolean legal = completingCards[player.id] != -1 && completedFromTokens(player.id)
+                    ? card == completingCards[player.id] : testTokens(player.id);
+            player.readyForCheck = true; //the tokens of a claim stay until its verdict
+            if (legal) holdClaim(player.id, nanos);
+            else synchronized (player) {
+                player.myFreezeState = 0;
+                player.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Works out the only card that completes a player's tokens to a legal set, so the claim that the next token makes is
+     * checked by comparing a single card.
+     * @param playerID - the player, who has featureSize - 1 tokens.
+     * @return - the card, or -1 if there is none.
+     */
+    private int completingCard(int playerID) {
+        int tokens = table.tokens(playerID, tokenSlots), from = playerID * (env.config.featureSize - 1);
+        for (int i = 0; i < tokens; i++) {
+            tokenCards[i] = table.cardAt(tokenSlots[i]);
+            completedSlots[from + i] = tokenSlots[i];
+            completedCards[from + i] = tokenCards[i];
+        }
+        return env.util.completeSet(tokenCards);
+    }
+
+    /**
+     * Checks if a player still has the tokens its completing card was worked out from, on the same cards. A change of
+     * the cards clears the tokens on them, which may leave the player featureSize - 1 other tokens (e.g. after a penalty,
+     * or when its held claim was dropped), and then the completing card is stale.
+     * @param playerID - the player, who placed its last token on a slot that is not one of them.
+     * @return - true iff the completing card was worked out from the player's other tokens.
+     */
+    private boolean completedFromTokens(int playerID) {
+        int from = playerID * (env.config.featureSize - 1);
+        for (int i = from; i < from + env.config.featureSize - 1; i++)
+            if (!table.hasToken(playerID, completedSlots[i]) || table.cardAt(completedSlots[i]) != completedCards[i])
+                return false;
+        return true;
+    }
+
+    /**
+     * Tests the cards under a player's tokens (when no completing card was worked out).
+     * @param playerID - the player, who has featureSize tokens.
+     * @return - true iff they form a legal set.
+     */
+    private boolean testTokens(int playerID) {
+        table.tokens(playerID, tokenSlots);
+        for (int i = 0; i < tokenSlots.length; i++)
+            tokenCards[i] = table.cardAt(tokenSlots[i]);
+        return env.util.testSet(tokenCards);
+    }
+
+    /**
+     * Holds the claim of a player, made of the slots of its tokens, until it is decided.
+     * @param playerID - the player.
+     * @param nanos    - the time of the press that made the claim.
+     */
+    private void holdClaim(int playerID, long nanos) {
+        int c = heldClaims++, from = c * env.config.featureSize;
+        claimPlayers[c] = playerID;
+        claimNanos[c] = nanos;
+        table.tokens(playerID, tokenSlots);
+        System.arraycopy(tokenSlots, 0, claimedSlots, from, tokenSlots.length);
+    }
+
+    /**
+     * Drops the claim of a player, who gets no verdict and may press again.
+     * @param player - the player.
+     */
+    private void dropClaim(Player player) {
+        synchronized (player) {
+            player.readyForCheck = false;
+            player.notifyAll();
+        }
+    }
+
+    /**
+     * Decides whether to keep holding the claims: while presses are on their way to the queue and the arbitration window
+     * of the earliest held claim is open, the claims are held and decided by an event at the end of the window (or by
+     * the next command event, if the presses on their way arrive first). A claim with no press on its way is never
+     * held.
+     * @return true iff the claims are held.
+     */
+    private boolean holdClaims() {
+        long now = System.nanoTime();
+        if (table.commands.inFlight() > 0) {
+            long earliest = claimNanos[0];
+            for (int c = 1; c < heldClaims; c++)
+                if (claimNanos[c] - earliest < 0) earliest = claimNanos[c];
+            long decideAt = earliest + env.config.claimWindowNanos;
+            if (decideAt - now > 0) {
+                if (arbitration == null) {
+                    heldSince = now;
+                    arbitration = events.schedule(this::arbitrationEvent, decideAt - now, TimeUnit.NANOSECONDS);
+                }
+                return true;
+            }
+        }
+        if (arbitration != null) {
+            arbitration.cancel(false);
+            arbitration = null;
+            long held = now - heldSince;
+            arbitrations++;
+            arbitrationNanos += held;
+            if (held > maxArbitrationNanos) maxArbitrationNanos = held;
+        }
+        return false;
+    }
+
+    /**
+     * Orders the held claims by the time they were made (an insertion sort, as there is at most one claim per
+     * player), counting the claims that move ahead of a claim that reached the dealer before them.
+     * @param count - the number of claims.
+     */
+    private void orderClaims(int count) {
+        for (int c = 0; c < count; c++) {
+            int i = c;
+            for (; i > 0 && claimNanos[claimOrder[i - 1]] - claimNanos[c] > 0; i--)
+                claimOrder[i] = claimOrder[i - 1];
+            claimOrder[i] = c;
+            if (i < c) reorderedClaims++;
+        }
+    }
+
+    /**
+     * Checks if a slot of a held claim was taken by a claim accepted earlier in the same check.
+     * @param from - the index of the claim's first slot in claimedSlots.
+     * @return true iff one of the slots is taken.
+     */
+    private boolean claimTaken(int from) {
+        for (int i = from; i < from + env.config.featureSize; i++)
+            if ((takenSlots[claimedSlots[i] >>> 6] & 1L << claimedSlots[i]) != 0) return true;
+        return false;
+    }
+
+    /**
+     * Marks the slots of a held claim as taken.
+     * @param from - the index of the claim's first slot in claimedSlots.
+     */
+    private void takeClaim(int from) {
+        for (int i = from; i < from + env.config.featureSize; i++)
+            takenSlots[claimedSlots[i] >>> 6] |= 1L << claimedSlots[i];
+    }
+
+    /**
+     * Removes the cards of the accepted claims and refills their slots from the deck, as a single change of the table.
+     * @param count - the number of slots in batchSlots.
+     */
+    private void commitBatch(int count) {
+        for (int i = 0; i < count; i++)
+            cardScored(table.cardAt(batchSlots[i]));
+        int refills = Math.min(count, deck.size());
+        for (int i = 0; i < refills; i++)
+            batchCards[i] = deck.draw(); //remove card from deck
+        for (int i = refills; i < count; i++)
+            addEmptySlot(batchSlots[i]); //adds the empty slot back to the market
+        table.replaceCards(batchSlots, count, batchCards, refills);
+    }
+
+    /**
+     * Reset and/or update the countdown and the countdown display.
+     */
+    private void updateTimerDisplay(boolean reset) {
+        //UP TIMER
+        if (env.config.turnTimeoutMillis == 0) {
+            if (reset) {
+                env.ui.setElapsed(0);
+                lastUpdate = System.currentTimeMillis();
+            } else {
+                long timerDisplay = (System.currentTimeMillis() - lastUpdate);
+                env.ui.setElapsed(timerDisplay);
+            }
+        }
+
+        //COUNTDOWN
+        else if (env.config.turnTimeoutMillis > 0) {
+            sleepTime = second;
+            if (reset){
+                timerDisplay = env.config.turnTimeoutMillis;
+                if (timerDisplay<=env.config.turnTimeoutWarningMillis) {
+                    env.ui.setCountdown(timerDisplay, true);
+                    sleepTime = mili10;
+                }
+                else env.ui.setCountdown(timerDisplay, false);
+                //the reshuffle time represents the time for next reshuffle
+                reshuffleTime = System.currentTimeMillis() + env.config.turnTimeoutMillis;
+            }
+            else {
+                timerDisplay = reshuffleTime - System.currentTimeMillis();
+                if (timerDisplay<=env.config.turnTimeoutWarningMillis) {
+                    env.ui.setCountdown(timerDisplay, true);
+                    sleepTime = mili10;
+                }
+                else env.ui.setCountdown(timerDisplay, false);
+            }
+        }
+    }
+
+    /**
+     * Returns all the cards from the table to the deck.
+     * @post: all slots are empty
+     * @post: the freeze started here has ended
+     */
+    public void removeAllCardsFromTable() {
+        table.freeze();
+        //the held claims are dropped, their players get no verdict
+        for (int c = 0; c < heldClaims; c++)
+            dropClaim(players[claimPlayers[c]]);
+        heldClaims = 0;
+        if (arbitration != null) {
+            arbitration.cancel(false);
+            arbitration = null;
+        }
+        int count = table.occupiedSlots(dealSlots); //only the slots with cards are visited
+        for (int i = 0; i < count; i++) {
+            deck.add(table.cardAt(dealSlots[i])); //adds the card back to the deck
+            addEmptySlot(dealSlots[i]); //adds the empty slot back to the market
+        }
+        table.removeCards(dealSlots, count); //removes the cards and their tokens at once
+        table.unfreeze();
+    }
+
+    /**
+     * Check who is/are the winner/s and displays them.
+     */
+    private void announceWinners() {
+        int maxScore = 0;
+        //finds max score
+        LinkedList<Integer> winners = new LinkedList<>();
+        for (int i = 0; i < env.config.players; i++) {
+            if (players[i].getScore() > maxScore) maxScore = players[i].getScore();
+        }
+        //finds player with max score
+        for (int i = 0; i < env.config.players; i++) {
+            if (players[i].getScore() == maxScore) {
+                winners.add(players[i].id);
+            }
+        }
+
+        //turns the list into an array
+        int[] winArray = new int[winners.size()];
+        for (int i = 0; i < winArray.length; i++) {
+            winArray[i] = winners.removeFirst();
+        }
+        env.ui.announceWinner(winArray);
+
+    }
+
+    /***Assit Functions*************************************************/
+    private void noSetsAction () {
+        if (env.config.guaranteeSets) {
+            //without a card of the deck that completes a set on the table, the table is redealt only if a set is left
+            if (!ensureSet() && setsLeft > 0) redealWithSet();
+            if (!table.hasSet()) terminate(); //no set is left in the deck and on the table
+            return;
+        }
+
+        //the table keeps count of its sets, so checking it takes constant time
+        boolean cond1 = env.config.turnTimeoutMillis <= 0 && !table.hasSet(); //for timeState <=
+        boolean cond2 = env.config.turnTimeoutMillis > 0 && deck.isEmpty() && !table.hasSet(); //for timeState >0 & deck is empty
+
+        if (cond1 || cond2) { //there are no sets on the table
+            if (!deck.isEmpty()) { //cond1 and the deck is not empty
+                removeAllCardsFromTable();
+                placeCardsOnTable();
+            } else { //cond1 and deck is empty \ cond2
+                terminate(); //threads waiting for the freeze to end are interrupted
+            }
+        }
+    }
+
+    /**
+     * Keeps a set on the table while the deck allows it: if the table has no set, a card on the table is swapped for a
+     * card of the deck that completes a set with the others (found with set-completion lookups, so the deck is never
+     * searched for sets).
+     * @return - true iff the table has a set.
+     */
+    private boolean ensureSet() {
+        if (table.hasSet()) return true;
+        if (deck.isEmpty()) return false;
+
+        table.cardsOnTable(boardCards);
+        int count = table.occupiedSlots(dealSlots);
+        for (int i = 0; i < count; i++) {
+            int slot = dealSlots[i], card = table.cardAt(slot);
+            boardCards[card >>> 6] &= ~(1L << card);
+            //the candidates are tried from a random position of the deck, so no card is preferred
+            for (int d = 0, start = ThreadLocalRandom.current().nextInt(deck.size()); d < deck.size(); d++) {
+                int candidate = deck.get((start + d) % deck.size());
+                if (env.util.findSetWith(candidate, boardCards, setBuffer)) {
+                    deck.remove(candidate);
+                    deck.add(card); //the card on the table goes back to the deck
+                    dealSlots[0] = slot;
+                    dealCards[0] = candidate;
+                    table.replaceCards(dealSlots, 1, dealCards, 1);
+                    return true;
+                }
+            }
+            boardCards[card >>> 6] |= 1L << card;
+        }
+        return false;
+    }
+
+    /**
+     * Redeals the table around a set of the game, in a single deal: the cards on the table go back to the deck, the
+     * cards of a set of the deck (found with set-completion lookups from a random card) are placed first, and the other
+     * slots are filled at random.
+     * @pre setsLeft > 0
+     */
+    private void redealWithSet() {
+        removeAllCardsFromTable();
+        long[] cards = deck.bits();
+        for (int d = 0, start = ThreadLocalRandom.current().nextInt(deck.size()); d < deck.size(); d++) {
+            if (!env.util.findSetWith(deck.get((start + d) % deck.size()), cards, setBuffer)) continue;
+            int count = 0;
+            while (count < setBuffer.length && emptyCount > 0) {
+                deck.remove(setBuffer[count]);
+                dealSlots[count] = takeEmptySlot();
+                dealCards[count] = setBuffer[count++];
+            }
+            table.placeCards(dealCards, dealSlots, count);
+            break;
+        }
+        placeCardOnEmptySlots();
+    }
+
+    /**
+     * @post all slots are filled
+     * @post emptySlots list is empty
+     */
+    public void placeCardOnEmptySlots(){
+        int count = 0;
+        while (emptyCount > 0 & !deck.isEmpty()) {
+            dealSlots[count] = takeEmptySlot();
+            dealCards[count++] = deck.draw(); //remove card from deck
+        }
+        table.placeCards(dealCards, dealSlots, count); //place them in the grid at once
+    }
+
+    public int getEmptySlotsSize(){
+        return emptyCount;
+    }
+
+    private void addEmptySlot(int slot) {
+        emptySlots[emptyCount++] = slot;
+    }
+
+    /**
+     * Takes a random slot off the free list, in constant time.
+     * @return - the slot.
+     * @pre emptyCount > 0
+     */
+    private int takeEmptySlot() {
+        int i = ThreadLocalRandom.current().nextInt(emptyCount);
+        int slot = emptySlots[i];
+        emptySlots[i] = emptySlots[--emptyCount];
+        return slot;
+    }
+
+
+    /************************************************************************/
+}
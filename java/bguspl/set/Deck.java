@@ -0,0 +1,107 @@
+package bguspl.set;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The cards left in the dealer's deck, kept as a bitmap and as an array, in no particular order. Since a card is drawn
+ * from a uniformly random position of the array, the deck is never shuffled, and every draw, return or removal of a
+ * card takes constant time whatever the size of the deck.
+ *
+ * @inv 0 <= size() <= deckSize
+ * @inv contains(card) iff card is one of get(0), ..., get(size() - 1)
+ */
+public class Deck {
+
+    /**
+     * The cards of the deck: the first size entries.
+     */
+    private final int[] cards;
+    private int size;
+
+    /**
+     * The position of every card in cards (-1 if the card is not in the deck).
+     */
+    private final int[] positions;
+
+    /**
+     * A bitmap of the cards of the deck (bit card % 64 of bits[card / 64] is set iff the card is in the deck).
+     */
+    private final long[] bits;
+
+    /**
+     * The class constructor.
+     *
+     * @param deckSize - the number of cards in the game; the deck starts with all of them.
+     */
+    public Deck(int deckSize) {
+        cards = new int[deckSize];
+        positions = new int[deckSize];
+        bits = new long[SetIndex.words(deckSize)];
+        for (int card = 0; card < deckSize; card++)
+            add(card);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int card) {
+        return positions[card] != -1;
+    }
+
+    /**
+     * @param i - a position in the deck.
+     * @return - the card at the position.
+     * @pre 0 <= i < size()
+     */
+    public int get(int i) {
+        return cards[i];
+    }
+
+    /**
+     * @return - the bitmap of the cards of the deck (owned by the deck, and changed by it).
+     */
+    public long[] bits() {
+        return bits;
+    }
+
+    /**
+     * Draws a uniformly random card.
+     *
+     * @return - the card drawn.
+     * @pre !isEmpty()
+     */
+    public int draw() {
+        int card = cards[ThreadLocalRandom.current().nextInt(size)];
+        remove(card);
+        return card;
+    }
+
+    /**
+     * Returns a card to the deck.
+     *
+     * @param card - the card, which is not in the deck.
+     */
+    public void add(int card) {
+        cards[size] = card;
+        positions[card] = size++;
+        bits[card >>> 6] |= 1L << card;
+    }
+
+    /**
+     * Takes a card out of the deck, moving the last card of the array to its place.
+     *
+     * @param card - the card, which is in the deck.
+     */
+    public void remove(int card) {
+        int position = positions[card], last = cards[--size];
+        cards[position] = last;
+        positions[last] = position;
+        positions[card] = -1;
+        bits[card >>> 6] &= ~(1L << card);
+    }
+}
@@ -1,3 +1,5 @@
+package bguspl.set;
+
 import java.util.logging.Logger;
 
 public class Env {
@@ -1,10 +1,16 @@
+package bguspl.set;
+
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.util.Arrays;
 import java.util.logging.Logger;
 
 /**
  * This class handles the input from the keyboard, translates it to table grid slots and dispatches accordingly.
+ * Slots can also be addressed directly (see slotPressed), e.g. by clicking on them, so boards with more slots than keys
+ * can be played.
  */
 class InputManager extends KeyAdapter {
 
@@ -13,10 +19,12 @@ class InputManager extends KeyAdapter {
     int[] keyMap = new int[MAX_KEY_CODE + 1];
     int[] keyToSlot = new int[MAX_KEY_CODE + 1];
     private final Logger logger;
+    private final Config config;
 
     public InputManager(Logger logger, Config config, Player[] players) {
         this.players = players;
         this.logger = logger;
+        this.config = config;
 
         // initialize the keys
         for (int player = 0; player < config.players; ++player)
@@ -37,10 +45,35 @@ class InputManager extends KeyAdapter {
     public void keyPressed(KeyEvent e) {
         // dispatch the key event to the player according to the key map
         int keyCode = e.getKeyCode();
-        int player = keyMap[keyCode] - 1;
+        int player = keyCode < keyMap.length ? keyMap[keyCode] - 1 : -1;
         if (player >= 0){
             logger.severe("key " + keyCode + " was pressed by player " + (player + 1));
-            players[player].keyPressed(keyToSlot[keyCode]);
+            slotPressed(player, keyToSlot[keyCode]);
         }
     }
+
+    /**
+     * Dispatches a press on a slot to a player, whatever the input device.
+     * @param player - the player.
+     * @param slot   - the slot pressed (slot = row * columns + column).
+     */
+    public void slotPressed(int player, int slot) {
+        if (player < 0 || player >= players.length || slot < 0 || slot >= config.tableSize) return;
+        players[player].keyPressed(slot);
+    }
+
+    /**
+     * Translates clicks on the grid of cards to slots, for the first player.
+     * @return - a listener for the panel that draws the grid (cells of cellWidth x cellHeight pixels).
+     */
+    public MouseAdapter clicks() {
+        return new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                int column = e.getX() / config.cellWidth, row = e.getY() / config.cellHeight;
+                if (column < config.columns && config.humanPlayers > 0)
+                    slotPressed(0, row * config.columns + column);
+            }
+        };
+    }
 }
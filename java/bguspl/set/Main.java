@@ -1,3 +1,5 @@
+package bguspl.set;
+
 import javax.swing.*;
 import java.io.File;
 import java.io.IOException;
@@ -1,4 +1,6 @@
-import java.util.ArrayList;
+package bguspl.set;
+
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * This class manages the players' threads and data
@@ -14,12 +16,22 @@ public class Player implements Runnable {
     Object aiKeyObj = new Object();
 
     Dealer dealer;
-    Thread dealerThread;
     int myFreezeState;
     int second = 1000;
     volatile boolean readyForCheck = false;
 
-    protected ArrayList<Integer> myTokens;
+    /**
+     * The number of key presses this player queued (written by its input thread only), and the number of them the dealer
+     * applied so far (written by the dealer only).
+     */
+    private int pressesQueued;
+    private volatile int pressesApplied;
+
+    /**
+     * True while the AI thread parks until the dealer applies its presses (set by the AI thread, and cleared by the
+     * dealer as it unparks it).
+     */
+    private volatile boolean aiParked;
 
     /**
      * The game environment object.
@@ -76,7 +88,6 @@ public class Player implements Runnable {
         this.id = id;
         this.human = human;
         this.dealer = dealer;
-        myTokens = new ArrayList<>();
         myFreezeState=-1;
     }
 
@@ -101,24 +112,15 @@ public class Player implements Runnable {
         synchronized (myKeyObj) { myKeyObj.notifyAll(); } //unpausing dealer
         while (!terminate) {
             synchronized (this) {
-                try {
-                    if (!readyForCheck) { //the player waits for three cards
-                        notifyAll();
+                //the dealer makes the claims from the player's presses, the player waits for a point or a penalty
+                while (myFreezeState == -1 && !terminate) {
+                    try {
                         wait();
-                    }
-                } catch (InterruptedException exit) {Thread.currentThread().interrupt();}
-
-                //adds the player to the concurrency queue
-                table.playersToCheckSet.add(id);
-
-                //wakes up the dealer and wait for him
-
-                synchronized (dealer) {dealer.notifyAll();}
-                try {
-                    wait();
-                } catch (InterruptedException x) {Thread.currentThread().interrupt();}
+                    } catch (InterruptedException exit) {Thread.currentThread().interrupt();}
+                }
                 pointOrPenalty();
                 readyForCheck = false;
+                notifyAll(); //the AI player may press again
             }
         }
         Thread.interrupted();
@@ -128,7 +130,7 @@ public class Player implements Runnable {
 
     /**
      * Creates an additional thread for an AI (computer) player. The main loop of this thread repeatedly generates
-     * key presses. If the queue of key presses is full, the thread waits until it is not full.
+     * featureSize key presses, wakes the dealer once for all of them, and waits until the dealer applied them.
      */
     private void createArtificialIntelligence() {
         // note: this is a very very smart AI (!)
@@ -137,22 +139,23 @@ public class Player implements Runnable {
             aiKey = true;
             synchronized (aiKeyObj) {aiKeyObj.notifyAll();} //unpausing player
             while (!terminate) {
-                synchronized (this) {
-                    if (table.freeze){
-                        synchronized (table.freezeObj){
-                            if (table.freeze) {
-                                try{
-                                    table.freezeObj.wait();
-                                } catch (InterruptedException x){Thread.currentThread().interrupt();}
-                                table.freezeObj.notifyAll();
-                            }
-                        }
-                    }
+                try {
+                    table.awaitUnfrozen(); //parks until the freeze epoch ends, without holding the player's monitor
+                } catch (InterruptedException x) {Thread.currentThread().interrupt();}
+                boolean queued = false;
+                for (int i = 0; i < env.config.featureSize; i++) {
                     int chosenSlot = (int) (Math.random() * env.config.tableSize); //choose a random number
-                    keyPressed(chosenSlot);
-                    while (readyForCheck) { //the AI player waits until there are 3 cards
+                    queued |= queuePress(chosenSlot);
+                }
+                if (queued) dealer.commandQueued(); //the dealer applies the presses in a single drain
+                while (pressesQueued - pressesApplied > 0 && !terminate) {
+                    aiParked = true; //set before the check, so a press applied after the check unparks the AI
+                    if (pressesQueued - pressesApplied > 0 && !terminate)
+                        LockSupport.park(this); //the dealer unparks the AI once it applied the drained presses
+                }
+                synchronized (this) {
+                    while (readyForCheck && !terminate) { //the AI player waits for the verdict on its claim
                         try {
-                            notifyAll();
                             wait();
                         } catch (InterruptedException ignored) {Thread.currentThread().interrupt();}
                     }
@@ -179,35 +182,48 @@ public class Player implements Runnable {
     }
 
     /**
-     * This method is called when a key is pressed.
+     * This method is called when a key is pressed. The press is queued for the dealer without locking, with the card the
+     * user interface shows in the slot (the table's state may be ahead of it while a deal is being shown), and the dealer
+     * applies it only if that card is still in the slot.
      *
      * @param slot - the slot corresponding to the key pressed.
      */
     public void keyPressed(int slot) {
-        synchronized (myTokens) {
-            if (!table.freeze && myFreezeState == -1 && table.slotToCard[slot] != null) {
-                boolean isDeletion = myTokens.contains(slot);
-                if (isDeletion) { //removes token if requested
-                    table.removeToken(id, slot);
-                    myTokens.remove((Integer) slot);
-                }
-                if (!isDeletion && myTokens.size() < env.config.featureSize) { //adds a token if requested
+        if (queuePress(slot)) dealer.commandQueued();
+    }
 
-                    myTokens.add(slot);
-                    table.placeToken(id, slot); //TODO replace "feature size" in the next line:
-                    synchronized (this) {
-                        if (myTokens.size() == env.config.featureSize && !terminate) {// 3 cards on the queue
-                            readyForCheck = true;
-                            notifyAll();
-                        }
-                    }
-                }
-            }
+    /**
+     * Queues a key press for the dealer, without waking it.
+     *
+     * @param slot - the slot corresponding to the key pressed.
+     * @return - true iff the press was queued (a press that finds the queue full is dropped, and counted by the queue).
+     */
+    private boolean queuePress(int slot) {
+        int card = table.shownCardAt(slot);
+        if (myFreezeState == -1 && !readyForCheck && card != Table.EMPTY && table.commands.offer(id, slot, card)) {
+            pressesQueued++;
+            return true;
         }
+        return false;
     }
 
+    /**
+     * Called by the dealer after it applied a press of the player (or dropped it).
+     */
+    void pressApplied() {
+        pressesApplied++;
+    }
 
-
+    /**
+     * Called by the dealer after it applied the presses of a drain that had presses of the player: unparks the AI
+     * thread if it waits for them, once per drain rather than once per press.
+     */
+    void pressesDrained() {
+        if (aiParked) {
+            aiParked = false;
+            LockSupport.unpark(aiThread);
+        }
+    }
 
     /**
      * Award a point to a player and perform other related actions.
@@ -0,0 +1,195 @@
+package bguspl.set;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * An index of every legal set in the deck, built once per configuration.
+ * The sets are numbered, and every card has a bitmap of the sets it belongs to, so the live sets of a collection of
+ * cards (i.e. the sets whose cards are all in the collection) are found with word-wide operations over those bitmaps.
+ * Collections of cards are given as bitmaps too: bit card % 64 of cards[card / 64] is set iff the card is in it.
+ */
+public class SetIndex {
+
+    /**
+     * The number of cards in a set.
+     */
+    private final int setSize;
+
+    /**
+     * The number of legal sets in the deck.
+     */
+    private final int size;
+
+    /**
+     * The sorted card ids of every set (setSize consecutive ids per set).
+     */
+    private final int[] sets;
+
+    /**
+     * cardSets[card] is a bitmap of the sets the card belongs to.
+     */
+    private final long[][] cardSets;
+
+    /**
+     * A bitmap of all the sets (i.e. with the bits of non-existing sets in the last word cleared).
+     */
+    private final long[] allSets;
+
+    /**
+     * Enumerates all the sets of the deck.
+     *
+     * @param config - the game configuration.
+     * @param util   - used to find the sets.
+     */
+    public SetIndex(Config config, Util util) {
+        setSize = config.featureSize;
+        Integer[] deck = new Integer[config.deckSize];
+        Arrays.setAll(deck, card -> card);
+        size = util.countSets(Arrays.asList(deck));
+
+        sets = new int[size * setSize];
+        int words = words(size);
+        cardSets = new long[config.deckSize][words];
+        int[] next = new int[1];
+        util.forEachSet(Arrays.asList(deck), new int[setSize], set -> {
+            int id = next[0]++;
+            System.arraycopy(set, 0, sets, id * setSize, setSize);
+            for (int card : set)
+                cardSets[card][id >>> 6] |= 1L << id;
+            return true;
+        });
+
+        allSets = new long[words];
+        Arrays.fill(allSets, -1L);
+        if (size % Long.SIZE != 0) allSets[words - 1] = (1L << size) - 1;
+    }
+
+    /**
+     * Estimates the memory taken by the index of a configuration, without building it.
+     *
+     * @param config - the game configuration.
+     * @return - the estimated number of bytes.
+     */
+    public static double estimateBytes(Config config) {
+        return countSets(config) * ((double) config.deckSize / Byte.SIZE + Integer.BYTES * config.featureSize);
+    }
+
+    /**
+     * Counts the sets of a configuration's deck without enumerating them.
+     *
+     * @param config - the game configuration.
+     * @return - the number of legal sets in the deck.
+     */
+    public static double countSets(Config config) {
+        // an ordered tuple of set values for a single feature is either all the same or all different
+        double factorial = 1;
+        for (int i = 2; i <= config.featureSize; ++i) factorial *= i;
+        double tuples = Math.pow(config.featureSize + factorial, config.featureCount) - config.deckSize;
+        return tuples / factorial;
+    }
+
+    /**
+     * @param bits - a number of bits.
+     * @return - the number of words in a bitmap of that many bits.
+     */
+    public static int words(int bits) {
+        return (bits + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    /**
+     * @return - the number of legal sets in the deck.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Copies the cards of a set.
+     *
+     * @param set    - the set number.
+     * @param buffer - an array of featureSize cards to receive the sorted card ids of the set.
+     */
+    public void set(int set, int[] buffer) {
+        System.arraycopy(sets, set * setSize, buffer, 0, setSize);
+    }
+
+    /**
+     * @param set - the set number.
+     * @param i   - the position of the card in the set.
+     * @return - the i-th (sorted) card id of the set.
+     */
+    public int card(int set, int i) {
+        return sets[set * setSize + i];
+    }
+
+    /**
+     * @param card - the card id.
+     * @return - a bitmap of the sets the card belongs to (must not be modified).
+     */
+    public long[] setsOf(int card) {
+        return cardSets[card];
+    }
+
+    /**
+     * Finds the live sets of a collection of cards - every set that does not include a missing card.
+     *
+     * @param cards - a bitmap of the cards in the collection.
+     * @return - a new bitmap of the live sets.
+     */
+    public long[] liveSets(long[] cards) {
+        long[] live = allSets.clone();
+        for (int word = 0; word < cardSets.length; word += Long.SIZE) {
+            long missing = word / Long.SIZE < cards.length ? ~cards[word / Long.SIZE] : -1L;
+            for (; missing != 0; missing &= missing - 1) {
+                int card = word + Long.numberOfTrailingZeros(missing);
+                if (card >= cardSets.length) break;
+                long[] dead = cardSets[card];
+                for (int i = 0; i < live.length; ++i)
+                    live[i] &= ~dead[i];
+            }
+        }
+        return live;
+    }
+
+    /**
+     * @param cards - a bitmap of the cards in a collection.
+     * @return - the number of live sets in the collection.
+     */
+    public int countSets(long[] cards) {
+        int count = 0;
+        for (long word : liveSets(cards))
+            count += Long.bitCount(word);
+        return count;
+    }
+
+    /**
+     * @param cards - a bitmap of the cards in a collection.
+     * @return - true iff the collection contains a legal set.
+     */
+    public boolean anySet(long[] cards) {
+        for (long word : liveSets(cards))
+            if (word != 0) return true;
+        return false;
+    }
+
+    /**
+     * Visits the live sets of a collection of cards one at a time, through a buffer owned by the caller.
+     *
+     * @param cards  - a bitmap of the cards in the collection.
+     * @param buffer - an array of featureSize cards, overwritten with the sorted card ids of every set visited.
+     * @param action - called with the buffer for every set, returns false to stop.
+     * @return - the number of sets visited.
+     */
+    public int forEachSet(long[] cards, int[] buffer, Predicate<int[]> action) {
+        long[] live = liveSets(cards);
+        int visited = 0;
+        for (int word = 0; word < live.length; ++word)
+            for (long bits = live[word]; bits != 0; bits &= bits - 1) {
+                set(word * Long.SIZE + Long.numberOfTrailingZeros(bits), buffer);
+                ++visited;
+                if (!action.test(buffer)) return visited;
+            }
+        return visited;
+    }
+}
@@ -1,3 +1,5 @@
+package bguspl.set;
+
 import java.awt.*;
 import java.util.Arrays;
 import javax.swing.*;
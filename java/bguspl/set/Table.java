@@ -0,0 +1,746 @@
+package bguspl.set;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * This class contains the data that is visible to the player.
+ *
+ * The players do not change the table themselves: their key presses are queued (see commands), and the dealer applies
+ * them, so the dealer is the only thread that changes the cards and the tokens. The bitmaps and counters of the cards
+ * are the dealer's, and are read on its thread only.
+ * Other threads read the cards without locks, either one slot at a time (cardAt, slotOf) or as a consistent snapshot of
+ * the whole table (see snapshot). The user interface shows the changes later, tableDelayMillis apart, and the players
+ * press the cards it shows (see shownCardAt).
+ *
+ * @inv slotToCard[x] == y iff cardToSlot[y] == x
+ */
+public class Table {
+
+    /**
+     * The value of an empty slot in slotToCard, and of a card that is not on the table in cardToSlot.
+     */
+    public static final int EMPTY = -1;
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    /**
+     * Mapping between a slot and the card placed in it (EMPTY if none).
+     */
+    protected final int[] slotToCard; // card per slot (if any)
+
+    /**
+     * Mapping between a card and the slot it is in (EMPTY if none).
+     */
+    protected final int[] cardToSlot; // slot per card (if any)
+
+    /**
+     * The version of the cards on the table, used as a seqlock: it is odd while the dealer is changing the mappings,
+     * and grows by 2 with every change.
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * A bitmap of the cards on the table (bit card % 64 of cardsOnTable[card / 64] is set iff the card is on the table).
+     */
+    private final long[] cardsOnTable;
+
+    /**
+     * A bitmap of the slots that have cards in them, and the number of these slots.
+     */
+    private final long[] slotsInUse;
+    private volatile int cardCount;
+
+    /**
+     * The number of legal sets among the cards on the table (updated whenever a card is placed or removed).
+     */
+    private volatile int liveSets;
+
+    /**
+     * True iff the table is a huge board (see Config.hugeBoard). A huge board has too many sets to list, so its hints
+     * show a single set of the table (witness), with the slots its cards were in (witnessSlots). The witness is looked
+     * for again only once one of its cards was removed.
+     */
+    private final boolean hugeBoard;
+    private final int[] witness;
+    private final int[] witnessSlots;
+
+    /**
+     * Atomic access to the elements of slotTokens and playerTokens.
+     */
+    private static final VarHandle TOKENS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /**
+     * slotTokens[slot] is a bitmap of the players that have a token on the slot.
+     */
+    private final long[] slotTokens;
+
+    /**
+     * A bitmap of the slots each player has tokens on: word w of player p is playerTokens[p * slotWords + w].
+     */
+    private final long[] playerTokens;
+    private final int slotWords;
+
+    /**
+     * The number of tokens of each player.
+     */
+    private final int[] tokenCounts;
+    private static final VarHandle COUNTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    /**
+     * Shows the card changes in the user interface tableDelayMillis apart, so the dealer never waits for them (null if
+     * there is no delay, in which case they are shown right away).
+     */
+    private final ScheduledExecutorService animator;
+
+    /**
+     * The time (System.nanoTime) at which the last scheduled change is shown (guarded by animator).
+     */
+    private long shownAt;
+
+    /**
+     * The card the user interface shows in each slot (EMPTY if none). It trails slotToCard by the scheduled changes that
+     * were not shown yet, and is what the players see, so their key presses name the card from here.
+     */
+    private final int[] shownCards;
+    private static final VarHandle SHOWN = MethodHandles.arrayElementVarHandle(int[].class);
+
+    /**
+     * The freeze epochs of the whole table: the phase of the phaser is odd while the table is frozen, and advances by
+     * one with every freeze and every unfreeze. Threads that wait for the table to unfreeze park in the phaser until
+     * their phase ends, and are released together by the unfreeze, without a chain of notifications.
+     */
+    private final Phaser freezes = new Phaser(1);
+
+    /**
+     * The number of nested freezes (changed by the dealer thread only).
+     */
+    private int freezeDepth;
+
+    /**
+     * The key presses of the players, waiting for the dealer to apply them. A computer player waits for its presses to be
+     * applied before it presses again, but a human player may press many keys (or hold one down) before the dealer
+     * drains them, so each human player has room for HUMAN_BURST presses.
+     */
+    final CommandQueue commands;
+    private static final int HUMAN_BURST = 64;
+
+    /**
+     * Constructor for testing.
+     *
+     * @param env        - the game environment objects.
+     * @param slotToCard - mapping between a slot and the card placed in it (EMPTY if none).
+     * @param cardToSlot - mapping between a card and the slot it is in (EMPTY if none).
+     */
+    public Table(Env env, int[] slotToCard, int[] cardToSlot) {
+
+        this.env = env;
+        this.slotToCard = slotToCard;
+        this.cardToSlot = cardToSlot;
+        commands = new CommandQueue(Math.max(env.config.computerPlayers * env.config.featureSize
+                + env.config.humanPlayers * Math.max(HUMAN_BURST, env.config.featureSize), 1));
+
+        if (env.config.players > Long.SIZE)
+            throw new IllegalArgumentException("at most " + Long.SIZE + " players are supported");
+        slotWords = SetIndex.words(env.config.tableSize);
+        slotTokens = new long[env.config.tableSize];
+        playerTokens = new long[env.config.players * slotWords];
+        tokenCounts = new int[env.config.players];
+
+        animator = env.config.tableDelayMillis <= 0 ? null : Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "table-animator");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        shownCards = slotToCard.clone();
+
+        hugeBoard = env.config.hugeBoard;
+        witness = new int[env.config.featureSize];
+        witnessSlots = new int[env.config.featureSize];
+        Arrays.fill(witness, EMPTY);
+        cardsOnTable = new long[SetIndex.words(env.config.deckSize)];
+        slotsInUse = new long[slotWords];
+        for (int slot = 0; slot < slotToCard.length; slot++)
+            if (slotToCard[slot] != EMPTY)
+                cardPlaced(slotToCard[slot], slot);
+    }
+
+    /**
+     * Constructor for actual usage.
+     *
+     * @param env - the game environment objects.
+     */
+    public Table(Env env) {
+
+        this(env, emptyMapping(env.config.tableSize), emptyMapping(env.config.deckSize));
+    }
+
+    private static int[] emptyMapping(int size) {
+        int[] mapping = new int[size];
+        Arrays.fill(mapping, EMPTY);
+        return mapping;
+    }
+
+    /**
+     * This method prints all possible legal sets of cards that are currently on the table.
+     */
+    public void hints() {
+        if (hugeBoard) {
+            if (findWitness()) printHint(witness, witnessSlots);
+            return;
+        }
+        if (!hasSet()) return;
+        int[] cards = new int[env.config.tableSize];
+        snapshot(cards);
+        List<Integer> deck = new ArrayList<>();
+        int[] slotOfCard = new int[env.config.deckSize];
+        for (int slot = 0; slot < cards.length; ++slot)
+            if (cards[slot] != EMPTY) {
+                deck.add(cards[slot]);
+                slotOfCard[cards[slot]] = slot;
+            }
+        int[] slots = new int[env.config.featureSize];
+        env.util.forEachSet(deck, new int[env.config.featureSize], set -> {
+            for (int i = 0; i < set.length; ++i)
+                slots[i] = slotOfCard[set[i]];
+            printHint(set, slots);
+            return true;
+        });
+    }
+
+    private void printHint(int[] set, int[] slotsOfSet) {
+        StringBuilder sb = new StringBuilder().append("Hint: Set found: ");
+        List<Integer> slots = Arrays.stream(slotsOfSet).boxed().sorted().collect(Collectors.toList());
+        int[][] features = env.util.cardsToFeatures(set);
+        System.out.println(sb.append("slots: ").append(slots).append(" features: ").append(Arrays.deepToString(features)));
+    }
+
+    /**
+     * Makes sure the witness is a set on the table (called by the dealer only). A set is looked for through the cards
+     * placed in the slots of the witness cards that were removed, and through the other cards on the table only if
+     * there is none, so the cards are never listed.
+     * @return - true iff there is a set on the table (it is in witness).
+     */
+    private boolean findWitness() {
+        if (liveSets == 0) return false;
+        boolean onTable = true;
+        for (int card : witness)
+            onTable &= card != EMPTY && cardToSlot[card] != EMPTY;
+        if (onTable) return true;
+
+        int[] set = new int[witness.length];
+        for (int i = 0; i < witness.length; ++i) {
+            int card = witness[i] == EMPTY ? EMPTY : slotToCard[witnessSlots[i]];
+            if (card != EMPTY && card != witness[i] && env.util.findSetWith(card, cardsOnTable, set))
+                return witnessFound(set);
+        }
+        for (int word = 0; word < cardsOnTable.length; ++word)
+            for (long bits = cardsOnTable[word]; bits != 0; bits &= bits - 1)
+                if (env.util.findSetWith(word * Long.SIZE + Long.numberOfTrailingZeros(bits), cardsOnTable, set))
+                    return witnessFound(set);
+        return false;
+    }
+
+    private boolean witnessFound(int[] set) {
+        for (int i = 0; i < set.length; ++i) {
+            witness[i] = set[i];
+            witnessSlots[i] = cardToSlot[set[i]];
+        }
+        return true;
+    }
+
+    /**
+     * Count the number of cards currently on the table.
+     * @return - the number of cards on the table.
+     * @inv countCards >=0
+     * @inv countCards <= env.config.tableSize
+     */
+    public int countCards() {
+        return cardCount;
+    }
+
+    /**
+     * Returns the card in a slot (a single slot is always read consistently, without locking).
+     * @param slot - the slot.
+     * @return - the card in the slot, or EMPTY if there is none.
+     */
+    public int cardAt(int slot) {
+        return slotToCard[slot];
+    }
+
+    /**
+     * Returns the card the user interface shows in a slot, which is the card in it unless a change to the slot is still
+     * waiting to be shown.
+     * @param slot - the slot.
+     * @return - the card shown in the slot, or EMPTY if there is none.
+     */
+    public int shownCardAt(int slot) {
+        return (int) SHOWN.getAcquire(shownCards, slot);
+    }
+
+    /**
+     * Returns the slot of a card (a single card is always read consistently, without locking).
+     * @param card - the card id.
+     * @return - the slot the card is in, or EMPTY if it is not on the table.
+     */
+    public int slotOf(int card) {
+        return cardToSlot[card];
+    }
+
+    /**
+     * Returns the current version of the cards on the table. The version changes whenever a card is placed or removed,
+     * so results derived from a snapshot stay valid as long as the version is the same.
+     * @return - the version (odd while the dealer is changing the cards).
+     */
+    public long version() {
+        return version.getAcquire();
+    }
+
+    /**
+     * Copies the cards on the table as one consistent view, without locking and without blocking the dealer (the copy
+     * is retried if the dealer changed the cards during it).
+     * @param cards - an array of tableSize entries to receive the card in each slot (EMPTY if none).
+     * @return - the version of the cards copied.
+     */
+    public long snapshot(int[] cards) {
+        while (true) {
+            long before = version.getAcquire();
+            if ((before & 1) == 0) {
+                System.arraycopy(slotToCard, 0, cards, 0, cards.length);
+                VarHandle.acquireFence(); // the copy is read before the version is checked again
+                if (version.getOpaque() == before) return before;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Marks the start of a change to the cards on the table.
+     */
+    private void beginWrite() {
+        version.setOpaque(version.getPlain() + 1);
+        VarHandle.storeStoreFence(); // the odd version is visible before any of the changes
+    }
+
+    /**
+     * Marks the end of a change to the cards on the table, publishing it.
+     */
+    private void endWrite() {
+        version.setRelease(version.getPlain() + 1);
+    }
+
+    /**
+     * Returns the number of legal sets among the cards on the table, in constant time.
+     * @return - the number of sets on the table.
+     */
+    public int countSets() {
+        return liveSets;
+    }
+
+    /**
+     * Checks if there is a legal set among the cards on the table, in constant time.
+     * @return - true iff there is a set on the table.
+     */
+    public boolean hasSet() {
+        return liveSets > 0;
+    }
+
+    /**
+     * Copies the bitmap of the cards on the table.
+     * @param cards - an array of (deckSize + 63) / 64 words to receive the bitmap (bit card % 64 of cards[card / 64] is
+     *              set iff the card is on the table).
+     */
+    public void cardsOnTable(long[] cards) {
+        System.arraycopy(cardsOnTable, 0, cards, 0, cardsOnTable.length);
+    }
+
+    /**
+     * Freezes the whole table, starting a new (odd) epoch unless it is frozen already. Freezes may be nested, and the
+     * table unfreezes when the outermost one ends (called by the dealer only).
+     */
+    public void freeze() {
+        if (freezeDepth++ == 0) freezes.arrive();
+    }
+
+    /**
+     * Ends a freeze of the whole table, starting a new (even) epoch and releasing the waiting threads if it was the
+     * outermost one (called by the dealer only).
+     */
+    public void unfreeze() {
+        if (--freezeDepth == 0) freezes.arrive();
+    }
+
+    /**
+     * @return - the current freeze epoch of the table (odd iff the table is frozen).
+     */
+    public int epoch() {
+        return freezes.getPhase();
+    }
+
+    /**
+     * Checks if the whole table is frozen.
+     * @return - true iff the current epoch is a freeze.
+     */
+    public boolean isFrozen() {
+        return (freezes.getPhase() & 1) != 0;
+    }
+
+    /**
+     * Waits until the table is not frozen, parking the thread until the current freeze epoch ends.
+     * @throws InterruptedException - if the thread is interrupted while waiting.
+     */
+    public void awaitUnfrozen() throws InterruptedException {
+        int epoch = freezes.getPhase();
+        if ((epoch & 1) != 0) freezes.awaitAdvanceInterruptibly(epoch);
+    }
+
+    /**
+     * Places a card on the table in a grid slot.
+     * @param card - the card id to place in the slot.
+     * @param slot - the slot in which the card should be placed.
+     *
+     * @post - the card placed is on the table, in the assigned slot.
+     */
+    public void placeCard(int card, int slot) {// של דילר
+        beginWrite();
+        cardToSlot[card] = slot;
+        slotToCard[slot] = card;
+        endWrite();
+
+        cardPlaced(card, slot);
+
+        showPlaceCard(card, slot);
+    }
+
+    /**
+     * Places cards on the table in grid slots, as a single change: readers see either none or all of the cards.
+     * The user interface shows the cards one by one, tableDelayMillis apart, without delaying the change itself.
+     * @param cards - the card ids to place.
+     * @param slots - the slots in which the cards should be placed (slots[i] gets cards[i]).
+     * @param count - the number of cards to place.
+     * @pre slotToCard[slots[i]] == EMPTY for every i < count
+     * @post - the cards placed are on the table, in the assigned slots.
+     */
+    public void placeCards(int[] cards, int[] slots, int count) {
+        beginWrite();
+        for (int i = 0; i < count; i++) {
+            cardToSlot[cards[i]] = slots[i];
+            slotToCard[slots[i]] = cards[i];
+        }
+        endWrite();
+
+        for (int i = 0; i < count; i++)
+            cardPlaced(cards[i], slots[i]);
+        for (int i = 0; i < count; i++)
+            showPlaceCard(cards[i], slots[i]);
+    }
+
+    /**
+     * Places cards on the table in grid slots, as a single change (see placeCards(int[], int[], int)).
+     * @param cards - the card ids to place.
+     * @param slots - the slots in which the cards should be placed (slots[i] gets cards[i]).
+     */
+    public void placeCards(int[] cards, int[] slots) {
+        placeCards(cards, slots, cards.length);
+    }
+
+    /**
+     * Removes a card from a grid slot on the table, together with the tokens on it.
+     * @param slot - the slot from which to remove the card.
+     * @pre slotToCard[slot] != EMPTY
+     * @pre countCards() > 0
+     * @post slotToCard[slot] == EMPTY
+     * @post @post(countCards) == @pre(countCards) -1
+     */
+    public void removeCard(int slot) {
+        int removedCard = slotToCard[slot];
+        beginWrite();
+        cardToSlot[removedCard] = EMPTY;
+        slotToCard[slot] = EMPTY;
+        clearTokens(slot);
+        endWrite();
+
+        cardRemoved(removedCard, slot);
+        env.ui.removeTokens(slot);
+        showRemoveCard(slot);
+    }
+
+    /**
+     * Removes cards from grid slots on the table, together with the tokens on them, as a single change: readers see
+     * either all or none of the cards. The user interface shows the removals one by one, tableDelayMillis apart,
+     * without delaying the change itself.
+     * @param slots - the slots from which to remove the cards.
+     * @param count - the number of cards to remove.
+     * @pre slotToCard[slots[i]] != EMPTY for every i < count
+     * @post slotToCard[slots[i]] == EMPTY for every i < count
+     */
+    public void removeCards(int[] slots, int count) {
+        for (int i = 0; i < count; i++)
+            cardRemoved(slotToCard[slots[i]], slots[i]);
+
+        beginWrite();
+        for (int i = 0; i < count; i++) {
+            cardToSlot[slotToCard[slots[i]]] = EMPTY;
+            slotToCard[slots[i]] = EMPTY;
+        }
+        for (int i = 0; i < count; i++)
+            clearTokens(slots[i]);
+        endWrite();
+
+        for (int i = 0; i < count; i++)
+            env.ui.removeTokens(slots[i]);
+        for (int i = 0; i < count; i++)
+            showRemoveCard(slots[i]);
+    }
+
+    /**
+     * Removes cards from grid slots on the table, as a single change (see removeCards(int[], int)).
+     * @param slots - the slots from which to remove the cards.
+     */
+    public void removeCards(int[] slots) {
+        removeCards(slots, slots.length);
+    }
+
+    /**
+     * Removes cards from grid slots on the table and refills some of the slots, as a single change: readers see either
+     * the old cards or the new ones, and never the slots empty in between.
+     * @param slots   - the slots from which to remove the cards.
+     * @param count   - the number of cards to remove.
+     * @param cards   - the card ids to place (slots[i] gets cards[i]).
+     * @param refills - the number of cards to place, in the first slots (the rest of the slots are left empty).
+     * @pre slotToCard[slots[i]] != EMPTY for every i < count
+     * @pre refills <= count
+     * @post slotToCard[slots[i]] == cards[i] for every i < refills, and EMPTY for every refills <= i < count
+     */
+    public void replaceCards(int[] slots, int count, int[] cards, int refills) {
+        for (int i = 0; i < count; i++)
+            cardRemoved(slotToCard[slots[i]], slots[i]);
+
+        beginWrite();
+        for (int i = 0; i < count; i++) {
+            cardToSlot[slotToCard[slots[i]]] = EMPTY;
+            slotToCard[slots[i]] = EMPTY;
+        }
+        for (int i = 0; i < count; i++)
+            clearTokens(slots[i]);
+        for (int i = 0; i < refills; i++) {
+            cardToSlot[cards[i]] = slots[i];
+            slotToCard[slots[i]] = cards[i];
+        }
+        endWrite();
+
+        for (int i = 0; i < refills; i++)
+            cardPlaced(cards[i], slots[i]);
+
+        for (int i = 0; i < count; i++)
+            env.ui.removeTokens(slots[i]);
+        for (int i = 0; i < count; i++)
+            showRemoveCard(slots[i]);
+        for (int i = 0; i < refills; i++)
+            showPlaceCard(cards[i], slots[i]);
+    }
+
+    /**
+     * Updates the bitmaps and counters of the table after a card was placed (called by the dealer only).
+     */
+    private void cardPlaced(int card, int slot) {
+        // only the sets through the placed card are new
+        liveSets += env.util.countSetsWith(card, cardsOnTable);
+        cardsOnTable[card >>> 6] |= 1L << card;
+        slotsInUse[slot >>> 6] |= 1L << slot;
+        cardCount++;
+    }
+
+    /**
+     * Updates the bitmaps and counters of the table after a card was removed (called by the dealer only).
+     */
+    private void cardRemoved(int card, int slot) {
+        // the card leaves the bitmap before the sets through it are counted, so no set is subtracted twice
+        cardsOnTable[card >>> 6] &= ~(1L << card);
+        liveSets -= env.util.countSetsWith(card, cardsOnTable);
+        slotsInUse[slot >>> 6] &= ~(1L << slot);
+        cardCount--;
+    }
+
+    /**
+     * Copies the slots that have cards in them, scanning a bitmap of the slots rather than the slots themselves.
+     * @param slots - an array to receive the slots (in increasing order), at least countCards() long.
+     * @return - the number of slots copied.
+     */
+    public int occupiedSlots(int[] slots) {
+        int count = 0;
+        for (int word = 0; word < slotsInUse.length; ++word)
+            for (long bits = slotsInUse[word]; bits != 0; bits &= bits - 1)
+                slots[count++] = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+        return count;
+    }
+
+    private void showPlaceCard(int card, int slot) {
+        if (animator == null) placeShownCard(card, slot);
+        else showLater(() -> placeShownCard(card, slot));
+    }
+
+    private void showRemoveCard(int slot) {
+        if (animator == null) removeShownCard(slot);
+        else showLater(() -> removeShownCard(slot));
+    }
+
+    /**
+     * Shows a card, and only then lets the players press it.
+     */
+    private void placeShownCard(int card, int slot) {
+        env.ui.placeCard(card, slot);
+        SHOWN.setRelease(shownCards, slot, card);
+    }
+
+    /**
+     * Stops the players from pressing a card, and then hides it.
+     */
+    private void removeShownCard(int slot) {
+        SHOWN.setRelease(shownCards, slot, EMPTY);
+        env.ui.removeCard(slot);
+    }
+
+    /**
+     * Schedules a change to be shown tableDelayMillis after the previous one (or after now, if it was shown already),
+     * so the changes are shown in the order they were made.
+     * @param change - the call to the user interface.
+     */
+    private void showLater(Runnable change) {
+        synchronized (animator) {
+            long now = System.nanoTime();
+            shownAt = Math.max(shownAt, now) + TimeUnit.MILLISECONDS.toNanos(env.config.tableDelayMillis);
+            try {
+                animator.schedule(change, shownAt - now, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException ignored) {} //the table was closed
+        }
+    }
+
+    /**
+     * Stops the animator thread, dropping the changes it has not shown yet (called by the dealer once the game is over).
+     */
+    public void close() {
+        if (animator != null) animator.shutdownNow();
+    }
+
+    /**
+     * Places a player token on a grid slot, or removes it if the player already has a token there. A token is placed
+     * only while the card the player saw is still in the slot and the player has less than maxTokens tokens (called by
+     * the dealer, which applies the players' key presses).
+     * @param player    - the player the token belongs to.
+     * @param slot      - the slot on which to toggle the token.
+     * @param card      - the card the player saw in the slot.
+     * @param maxTokens - the maximal number of tokens of a player.
+     * @return          - the number of tokens the player has after placing a token, or -1 if no token was placed.
+     */
+    public int toggleToken(int player, int slot, int card, int maxTokens) {
+        if (removeToken(player, slot)) return -1;
+        int tokens = countTokens(player);
+        if (tokens >= maxTokens || slotToCard[slot] != card) return -1;
+        placeToken(player, slot);
+        return tokens + 1;
+    }
+
+    /**
+     * Places a player token on a grid slot.
+     * @param player - the player the token belongs to.
+     * @param slot   - the slot on which to place the token.
+     */
+    public void placeToken(int player, int slot) {
+        long slotBit = 1L << slot;
+        if (((long) TOKENS.getAndBitwiseOr(playerTokens, player * slotWords + (slot >>> 6), slotBit) & slotBit) == 0)
+            COUNTS.getAndAdd(tokenCounts, player, 1);
+        TOKENS.getAndBitwiseOr(slotTokens, slot, 1L << player);
+        env.ui.placeToken(player, slot);
+    }
+
+    /**
+     * Removes a token of a player from a grid slot.
+     * @param player - the player the token belongs to.
+     * @param slot   - the slot from which to remove the token.
+     * @return       - true iff a token was successfully removed.
+     */
+    public boolean removeToken(int player, int slot) {
+        long slotBit = 1L << slot;
+        if (((long) TOKENS.getAndBitwiseAnd(playerTokens, player * slotWords + (slot >>> 6), ~slotBit) & slotBit) == 0)
+            return false;
+        COUNTS.getAndAdd(tokenCounts, player, -1);
+        TOKENS.getAndBitwiseAnd(slotTokens, slot, ~(1L << player));
+        env.ui.removeToken(player,slot);
+        return true;
+    }
+
+    /**
+     * Removes the tokens of all the players from a grid slot, touching only the players that have a token there.
+     * @param slot - the slot from which to remove the tokens.
+     */
+    public void removeTokens(int slot) {
+        if (clearTokens(slot)) env.ui.removeTokens(slot);
+    }
+
+    /**
+     * Clears the tokens of all the players from a grid slot, without updating the user interface. The dealer clears the
+     * tokens of a slot after emptying it and before publishing the change, so a snapshot of the table never shows a
+     * token of a card that is gone.
+     * @param slot - the slot from which to clear the tokens.
+     * @return - true iff any player had a token there.
+     */
+    private boolean clearTokens(int slot) {
+        long players = (long) TOKENS.getAndSet(slotTokens, slot, 0L);
+        if (players == 0) return false;
+        long slotBit = 1L << slot;
+        for (; players != 0; players &= players - 1) {
+            int player = Long.numberOfTrailingZeros(players);
+            if (((long) TOKENS.getAndBitwiseAnd(playerTokens, player * slotWords + (slot >>> 6), ~slotBit) & slotBit) != 0)
+                COUNTS.getAndAdd(tokenCounts, player, -1);
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a player has a token on a slot.
+     * @param player - the player.
+     * @param slot   - the slot.
+     * @return - true iff the player has a token on the slot.
+     */
+    public boolean hasToken(int player, int slot) {
+        return ((long) TOKENS.getVolatile(playerTokens, player * slotWords + (slot >>> 6)) & 1L << slot) != 0;
+    }
+
+    /**
+     * Counts the tokens of a player, in constant time.
+     * @param player - the player.
+     * @return - the number of slots the player has a token on.
+     */
+    public int countTokens(int player) {
+        return (int) COUNTS.getVolatile(tokenCounts, player);
+    }
+
+    /**
+     * Copies the slots a player has tokens on.
+     * @param player - the player.
+     * @param slots  - an array to receive the slots (in increasing order), as many as it can hold.
+     * @return - the number of slots copied.
+     */
+    public int tokens(int player, int[] slots) {
+        int count = 0;
+        for (int word = 0; word < slotWords; ++word)
+            for (long bits = (long) TOKENS.getVolatile(playerTokens, player * slotWords + word); bits != 0 && count < slots.length; bits &= bits - 1)
+                slots[count++] = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+        return count;
+    }
+}
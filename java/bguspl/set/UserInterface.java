@@ -1,3 +1,5 @@
+package bguspl.set;
+
 
 /**
  * This interface contains all methods used to display the graphical user interface.
@@ -1,3 +1,5 @@
+package bguspl.set;
+
 import javax.swing.*;
 import java.awt.*;
 import java.io.FileNotFoundException;
@@ -59,7 +61,9 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         setLocationRelativeTo(null);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
-        addKeyListener(new InputManager(logger, config, players));
+        InputManager inputManager = new InputManager(logger, config, players);
+        addKeyListener(inputManager);
+        gamePanel.addMouseListener(inputManager.clicks());
         addWindowListener(new WindowManager());
 
         EventQueue.invokeLater(() -> setVisible(true));
@@ -0,0 +1,151 @@
+package bguspl.set;
+
+import java.nio.IntBuffer;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * An interface for general utilities provided for convenience.
+ */
+public interface Util {
+
+    /**
+     * Converts a card id to an array of features (of config.featureCount values between 0 and config.featuresSize - 1)
+     *
+     * @param card - the card id.
+     * @return - the array of features.
+     */
+    int[] cardToFeatures(int card);
+
+    /**
+     * Converts an array of card ids to an array of features (see cardToFeatures method).
+     *
+     * @param cards - an array of card ids.
+     * @return - a 2d array of features (respectively).
+     */
+    int[][] cardsToFeatures(int[] cards);
+
+    /**
+     * Checks if an array of cards forms a legal set.
+     *
+     * @param cards - the array of cards.
+     * @return - true iff the array forms a legal set.
+     */
+    boolean testSet(int[] cards);
+
+    /**
+     * Finds the only card that completes featureSize - 1 cards to a legal set.
+     *
+     * @param cards - an array whose first featureSize - 1 entries are distinct card ids.
+     * @return - the card id, or -1 if no card completes them (or any card does, if featureSize < 3).
+     */
+    int completeSet(int[] cards);
+
+    /**
+     * Checks many candidate sets in a single pass.
+     *
+     * @param candidates - the card ids of the candidates, featureSize consecutive ids per candidate.
+     * @param count      - the number of candidates to check.
+     * @param verdicts   - a bitmap of at least (count + 63) / 64 words to fill: bit i % 64 of verdicts[i / 64] is set
+     *                   iff candidate i forms a legal set.
+     * @return - the number of legal sets among the candidates.
+     */
+    int testSets(int[] candidates, int count, long[] verdicts);
+
+    /**
+     * Checks many candidate sets in a single pass (see testSets(int[], int, long[])).
+     *
+     * @param candidates - the card ids of the candidates, starting at the buffer's position (which is not changed).
+     * @param count      - the number of candidates to check.
+     * @param verdicts   - a bitmap to fill with the verdicts.
+     * @return - the number of legal sets among the candidates.
+     */
+    int testSets(IntBuffer candidates, int count, long[] verdicts);
+
+    /**
+     * Finds and returns up to count sets in the given collection of cards.
+     *
+     * @param deck  - a collection of cards (may not include null objects).
+     * @param count - the maximum number of sets to find.
+     * @return - a list of up to count integer arrays, each one contains the card ids of a legal set.
+     */
+    List<int[]> findSets(List<Integer> deck, int count);
+
+    /**
+     * Lazily enumerates the sets in the given collection of cards. Sets are only searched for as they are consumed, and
+     * the spliterator can be split for parallel consumption.
+     *
+     * @param deck - a collection of cards (may not include null objects).
+     * @return - a spliterator over the sets, each one a new array of the sorted card ids of a legal set.
+     */
+    Spliterator<int[]> spliterateSets(List<Integer> deck);
+
+    /**
+     * Lazily enumerates the sets in the given collection of cards (see spliterateSets).
+     *
+     * @param deck     - a collection of cards (may not include null objects).
+     * @param parallel - true iff the returned stream should be parallel.
+     * @return - a stream of the sets, each one a new array of the sorted card ids of a legal set.
+     */
+    Stream<int[]> streamSets(List<Integer> deck, boolean parallel);
+
+    /**
+     * Counts the sets in the given collection of cards without collecting them.
+     *
+     * @param deck - a collection of cards (may not include null objects).
+     * @return - the number of legal sets.
+     */
+    int countSets(List<Integer> deck);
+
+    /**
+     * Checks if there is any set in the given collection of cards, stopping at the first one found.
+     *
+     * @param deck - a collection of cards (may not include null objects).
+     * @return - true iff the collection contains a legal set.
+     */
+    boolean anySet(List<Integer> deck);
+
+    /**
+     * Visits the sets in the given collection of cards one at a time, through a buffer owned by the caller.
+     *
+     * @param deck   - a collection of cards (may not include null objects).
+     * @param buffer - an array of featureSize cards, overwritten with the sorted card ids of every set visited.
+     * @param action - called with the buffer for every set, returns false to stop the search.
+     * @return - the number of sets visited.
+     */
+    int forEachSet(List<Integer> deck, int[] buffer, Predicate<int[]> action);
+
+    /**
+     * Counts the sets that a card forms with the cards of a collection (e.g. the sets a card adds to the table).
+     *
+     * @param card  - the card id.
+     * @param cards - a bitmap of the collection: bit card % 64 of cards[card / 64] is set iff the card is in it (the
+     *              card itself is ignored).
+     * @return - the number of legal sets that include the card and whose other cards are all in the collection.
+     */
+    int countSetsWith(int card, long[] cards);
+
+    /**
+     * Finds a set that a card forms with the cards of a collection, stopping at the first one.
+     *
+     * @param card  - the card id.
+     * @param cards - a bitmap of the collection (as in countSetsWith).
+     * @param set   - an array of featureSize cards, overwritten with the cards of the set found (the card first).
+     * @return - true iff a set was found.
+     */
+    boolean findSetWith(int card, long[] cards, int[] set);
+
+    /**
+     * Returns the index of all the sets in the deck, which answers set queries over bitmaps of cards.
+     *
+     * @return - the set index, or null if the deck has too many sets to index (see Config.setIndexMaxMegabytes).
+     */
+    SetIndex setIndex();
+
+    /**
+     * Spin a random number of times (for debugging/testing).
+     */
+    void spin();
+}
@@ -0,0 +1,722 @@
+package bguspl.set;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The implementation of the Util interface: the set engine of the game. Sets are tested over packed cards (a bit field
+ * per feature), searched for by completing featureSize - 1 cards through a presence index (sequentially, lazily or on
+ * the fork-join pool), and answered over bitmaps of cards through the set index when it is cheaper.
+ */
+public class UtilImpl implements Util {
+
+    private final Config config;
+
+    /**
+     * The features of every card in the deck (i.e. features[card] == cardToFeatures(card)).
+     */
+    private final int[][] features;
+
+    /**
+     * The value of each feature position in a card id (i.e. featureSize ^ (featureCount - 1 - i)).
+     */
+    private final int[] featureWeights;
+
+    /**
+     * The packed form of every card (null if featureCount * featureSize > 64). Feature i of a card is the bit field
+     * [i * featureSize, (i + 1) * featureSize), with only the bit of the feature's value set.
+     */
+    private final long[] packed;
+
+    /**
+     * Bit masks over all the feature fields of a packed card: the lowest bit of each field, the highest bit of each
+     * field and all the bits of the fields.
+     */
+    private final long fieldLow;
+    private final long fieldHigh;
+    private final long fieldBits;
+
+    /**
+     * The index of all the sets in the deck (null if it is too large, see Config.setIndexMaxMegabytes).
+     */
+    private final SetIndex index;
+
+    /**
+     * The feature masks of the partial sets of countSetsWith and findSetWith (seen[d][i] is a bit mask of the values of
+     * feature i among the first d cards), allocated once per thread, since the dealer calls them for every card it
+     * places, removes or scores.
+     */
+    private final ThreadLocal<int[][]> seenMasks;
+
+    public UtilImpl(Config config) {
+        this.config = config;
+        features = new int[config.deckSize][config.featureCount];
+        for (int card = 0; card < config.deckSize; ++card)
+            cardToFeatures(card, features[card]);
+        featureWeights = new int[config.featureCount];
+        for (int i = config.featureCount - 1, weight = 1; i >= 0; --i, weight *= config.featureSize)
+            featureWeights[i] = weight;
+
+        long low = 0, high = 0, bits = 0;
+        if (config.featureCount * config.featureSize <= Long.SIZE) {
+            packed = new long[config.deckSize];
+            for (int card = 0; card < config.deckSize; ++card)
+                for (int i = 0; i < config.featureCount; ++i)
+                    packed[card] |= 1L << (i * config.featureSize + features[card][i]);
+            long field = config.featureSize == Long.SIZE ? -1L : (1L << config.featureSize) - 1;
+            for (int i = 0; i < config.featureCount; ++i) {
+                int shift = i * config.featureSize;
+                low |= 1L << shift;
+                high |= 1L << (shift + config.featureSize - 1);
+                bits |= field << shift;
+            }
+        } else packed = null;
+        fieldLow = low;
+        fieldHigh = high;
+        fieldBits = bits;
+
+        boolean indexed = config.featureSize >= 3
+                && SetIndex.estimateBytes(config) <= config.setIndexMaxMegabytes * 1024.0 * 1024.0;
+        index = indexed ? new SetIndex(config, this) : null;
+        seenMasks = ThreadLocal.withInitial(() -> new int[config.featureSize][config.featureCount]);
+    }
+
+    private void cardToFeatures(int card, int[] features) {
+        for (int i = config.featureCount - 1; i >= 0; --i) {
+            features[i] = card % config.featureSize;
+            card /= config.featureSize;
+        }
+    }
+
+    @Override
+    public int[] cardToFeatures(int card) {
+        return features[card].clone();
+    }
+
+    @Override
+    public int[][] cardsToFeatures(int[] cards) {
+        int[][] cardsFeatures = new int[cards.length][];
+        for (int i = 0; i < cards.length; ++i)
+            cardsFeatures[i] = features[cards[i]].clone();
+        return cardsFeatures;
+    }
+
+    @Override
+    public boolean testSet(int[] cards) {
+        if (packed == null || cards.length != config.featureSize) return testSetByFeatures(cards, 0, cards.length);
+
+        long values = 0;
+        for (int card : cards)
+            values |= packed[card];
+        return illegalFields(values) == 0;
+    }
+
+    @Override
+    public int completeSet(int[] cards) {
+        int r = config.featureSize;
+        if (r < 3) return -1;
+
+        long values = 0;
+        if (packed != null)
+            for (int i = 0; i < r - 1; ++i)
+                values |= packed[cards[i]];
+        long field = r == Long.SIZE ? -1L : (1L << r) - 1;
+
+        int card = 0;
+        for (int i = 0; i < config.featureCount; ++i) {
+            long seen = 0;
+            if (packed != null) seen = values >>> (i * r) & field;
+            else for (int j = 0; j < r - 1; ++j)
+                seen |= 1L << features[cards[j]][i];
+
+            // a feature that is the same in all cards keeps its value, otherwise the missing value completes it
+            int count = Long.bitCount(seen);
+            if (count == 1) card += Long.numberOfTrailingZeros(seen) * featureWeights[i];
+            else if (count == r - 1) card += Long.numberOfTrailingZeros(~seen & field) * featureWeights[i];
+            else return -1;
+        }
+        return card;
+    }
+
+    @Override
+    public int testSets(int[] candidates, int count, long[] verdicts) {
+        return testSets(candidates, 0, count, verdicts);
+    }
+
+    @Override
+    public int testSets(IntBuffer candidates, int count, long[] verdicts) {
+        int r = config.featureSize;
+        int position = candidates.position();
+        if (candidates.hasArray())
+            return testSets(candidates.array(), candidates.arrayOffset() + position, count, verdicts);
+
+        // direct buffers are checked through a scratch copy of one candidate at a time
+        int[] cards = new int[r];
+        int legal = 0;
+        for (int word = 0, candidate = 0; candidate < count; ++word) {
+            long bits = 0;
+            for (int bit = 0; bit < Long.SIZE && candidate < count; ++bit, ++candidate) {
+                for (int i = 0; i < r; ++i)
+                    cards[i] = candidates.get(position + candidate * r + i);
+                if (testSet(cards)) bits |= 1L << bit;
+            }
+            verdicts[word] = bits;
+            legal += Long.bitCount(bits);
+        }
+        return legal;
+    }
+
+    private int testSets(int[] candidates, int offset, int count, long[] verdicts) {
+        int r = config.featureSize;
+        int legal = 0;
+        for (int word = 0, candidate = 0; candidate < count; ++word) {
+            int end = Math.min(count, candidate + Long.SIZE);
+            long bits = 0;
+            if (packed == null) {
+                for (int bit = 0; candidate < end; ++bit, ++candidate)
+                    if (testSetByFeatures(candidates, offset + candidate * r, r)) bits |= 1L << bit;
+            } else if (r == 3) {
+                // the common case is unrolled so the loop body is straight line code
+                for (int bit = 0, i = offset + candidate * 3; candidate < end; ++bit, ++candidate, i += 3) {
+                    long values = packed[candidates[i]] | packed[candidates[i + 1]] | packed[candidates[i + 2]];
+                    bits |= legalBit(values) << bit;
+                }
+            } else {
+                for (int bit = 0, i = offset + candidate * r; candidate < end; ++bit, ++candidate) {
+                    long values = 0;
+                    for (int last = i + r; i < last; ++i)
+                        values |= packed[candidates[i]];
+                    bits |= legalBit(values) << bit;
+                }
+            }
+            verdicts[word] = bits;
+            legal += Long.bitCount(bits);
+        }
+        return legal;
+    }
+
+    /**
+     * @param values - the bitwise or of the packed cards of a candidate.
+     * @return - 1 if the candidate is a legal set, 0 otherwise (without branching).
+     */
+    private long legalBit(long values) {
+        long illegal = illegalFields(values);
+        return 1L ^ ((illegal | -illegal) >>> 63);
+    }
+
+    /**
+     * Checks all the features of a candidate at once.
+     *
+     * @param values - the bitwise or of the packed cards of the candidate.
+     * @return - a mask with the highest bit set of every feature field that has neither a single value (same in all
+     * cards) nor all the values (different in all cards). The candidate is a legal set iff the mask is 0.
+     */
+    private long illegalFields(long values) {
+        // every field has at least one bit, so subtracting fieldLow never borrows from the next field
+        long mixed = nonZeroFields(values & (values - fieldLow));
+        long partial = nonZeroFields(~values & fieldBits);
+        return mixed & partial;
+    }
+
+    /**
+     * @return - a mask with the highest bit of every non-zero field of bits set.
+     */
+    private long nonZeroFields(long bits) {
+        long rest = fieldBits & ~fieldHigh;
+        return (((bits & rest) + rest) | bits) & fieldHigh;
+    }
+
+    private boolean testSetByFeatures(int[] cards, int from, int length) {
+        int to = from + length;
+        for (int i = 0; i < config.featureCount; ++i) {
+            boolean sameSame = true, butDifferent = true;
+
+            // check if this features is sameSame in all cards
+            for (int j = from + 1; j < to; ++j)
+                if (features[cards[from]][i] != features[cards[j]][i]) {
+                    sameSame = false;
+                    break;
+                }
+
+            // check if this feature is butDifferent in all cards
+            for (int j = from + 1; j < to; ++j)
+                for (int k = j; k < to; ++k)
+                    if (features[cards[j - 1]][i] == features[cards[k]][i]) {
+                        butDifferent = false;
+                        break;
+                    }
+
+            if (sameSame == butDifferent) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public List<int[]> findSets(List<Integer> deck, int count) {
+        // with less than 3 cards per set the last card is not determined by the others
+        if (config.featureSize < 3) return findSetsByCombinations(deck, count);
+
+        LinkedList<int[]> sets = new LinkedList<>();
+        if (count <= 0) return sets;
+
+        int[] cards = sortedCards(deck);
+        boolean[] present = presence(cards);
+        if (isParallel(cards))
+            return ForkJoinPool.commonPool().invoke(new SearchTask(cards, present, 0, cards.length, count, new AtomicInteger()));
+
+        SetCursor cursor = new SetCursor(cards, present, 0, cards.length);
+        for (int[] set = new int[config.featureSize]; sets.size() < count && cursor.next(set); set = new int[config.featureSize])
+            sets.add(set);
+        return sets;
+    }
+
+    @Override
+    public Spliterator<int[]> spliterateSets(List<Integer> deck) {
+        if (config.featureSize < 3) return findSetsByCombinations(deck, Integer.MAX_VALUE).spliterator();
+
+        int[] cards = sortedCards(deck);
+        return new SetSpliterator(new SetCursor(cards, presence(cards), 0, cards.length));
+    }
+
+    @Override
+    public Stream<int[]> streamSets(List<Integer> deck, boolean parallel) {
+        return StreamSupport.stream(spliterateSets(deck), parallel);
+    }
+
+    @Override
+    public int countSets(List<Integer> deck) {
+        if (config.featureSize < 3) return findSetsByCombinations(deck, Integer.MAX_VALUE).size();
+
+        int[] cards = sortedCards(deck);
+        if (useIndex(cards)) return index.countSets(cardBits(cards));
+
+        SetCursor cursor = new SetCursor(cards, presence(cards), 0, cards.length);
+        if (isParallel(cards)) return (int) StreamSupport.stream(new SetSpliterator(cursor), true).count();
+
+        int count = 0;
+        for (int[] set = new int[config.featureSize]; cursor.next(set); ++count) ;
+        return count;
+    }
+
+    @Override
+    public boolean anySet(List<Integer> deck) {
+        return forEachSet(deck, new int[config.featureSize], set -> false) > 0;
+    }
+
+    @Override
+    public int forEachSet(List<Integer> deck, int[] buffer, Predicate<int[]> action) {
+        int visited = 0;
+        if (config.featureSize < 3) {
+            for (int[] set : findSetsByCombinations(deck, Integer.MAX_VALUE)) {
+                System.arraycopy(set, 0, buffer, 0, set.length);
+                ++visited;
+                if (!action.test(buffer)) break;
+            }
+            return visited;
+        }
+
+        int[] cards = sortedCards(deck);
+        if (useIndex(cards)) return index.forEachSet(cardBits(cards), buffer, action);
+
+        SetCursor cursor = new SetCursor(cards, presence(cards), 0, cards.length);
+        while (cursor.next(buffer)) {
+            ++visited;
+            if (!action.test(buffer)) break;
+        }
+        return visited;
+    }
+
+    @Override
+    public int countSetsWith(int card, long[] cards) {
+        if (config.featureSize < 3) {
+            if (config.featureSize != 2) return 0;
+            int n = 0;
+            for (long word : cards)
+                n += Long.bitCount(word);
+            return (cards[card >>> 6] & 1L << card) != 0 ? n - 1 : n;
+        }
+
+        int[][] seen = seenMasks.get();
+        extend(seen[0], seen[1], card, 1);
+        return countCompletions(card, cards, 0, 1, seen);
+    }
+
+    /**
+     * Counts the sets that include a card, by extending it with depth - 1 other cards of the bitmap (from card from on)
+     * and looking up the card that completes each candidate. Every set is found exactly once - its other cards are taken
+     * in increasing order, and the completing card must be the highest of them.
+     *
+     * @return - the number of sets found.
+     */
+    private int countCompletions(int card, long[] cards, int from, int depth, int[][] seen) {
+        int count = 0;
+        for (int other = nextCard(cards, from); other != -1; other = nextCard(cards, other + 1)) {
+            if (other == card || !extend(seen[depth], seen[depth + 1], other, depth + 1)) continue;
+
+            if (depth + 2 < config.featureSize) {
+                count += countCompletions(card, cards, other + 1, depth + 1, seen);
+            } else {
+                int last = completion(seen[depth + 1]);
+                if (last > other && last != card && (cards[last >>> 6] & 1L << last) != 0) ++count;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public boolean findSetWith(int card, long[] cards, int[] set) {
+        set[0] = card;
+        if (config.featureSize < 3) {
+            for (int other = nextCard(cards, 0); other != -1; other = nextCard(cards, other + 1))
+                if (other != card && config.featureSize == 2) {
+                    set[1] = other;
+                    return true;
+                }
+            return false;
+        }
+
+        int[][] seen = seenMasks.get();
+        extend(seen[0], seen[1], card, 1);
+        return findCompletion(card, cards, 0, 1, seen, set);
+    }
+
+    /**
+     * Finds a set that includes a card like countCompletions does, stopping at the first set.
+     *
+     * @return - true iff a set was found (its cards are in set).
+     */
+    private boolean findCompletion(int card, long[] cards, int from, int depth, int[][] seen, int[] set) {
+        for (int other = nextCard(cards, from); other != -1; other = nextCard(cards, other + 1)) {
+            if (other == card || !extend(seen[depth], seen[depth + 1], other, depth + 1)) continue;
+            set[depth] = other;
+
+            if (depth + 2 < config.featureSize) {
+                if (findCompletion(card, cards, other + 1, depth + 1, seen, set)) return true;
+            } else {
+                int last = completion(seen[depth + 1]);
+                if (last > other && last != card && (cards[last >>> 6] & 1L << last) != 0) {
+                    set[depth + 1] = last;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return - the first card of a bitmap that is not lower than from, or -1 if there is none.
+     */
+    private static int nextCard(long[] cards, int from) {
+        int word = from >>> 6;
+        if (word >= cards.length) return -1;
+        long bits = cards[word] & -1L << from;
+        while (bits == 0) {
+            if (++word == cards.length) return -1;
+            bits = cards[word];
+        }
+        return word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+    }
+
+    @Override
+    public SetIndex setIndex() {
+        return index;
+    }
+
+    private int[] sortedCards(List<Integer> deck) {
+        return deck.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+    }
+
+    private boolean[] presence(int[] cards) {
+        boolean[] present = new boolean[config.deckSize];
+        for (int card : cards)
+            present[card] = true;
+        return present;
+    }
+
+    private long[] cardBits(int[] cards) {
+        long[] bits = new long[SetIndex.words(config.deckSize)];
+        for (int card : cards)
+            bits[card >>> 6] |= 1L << card;
+        return bits;
+    }
+
+    /**
+     * Decides whether a query is cheaper through the set index (a pass over the set bitmap of every missing card) than
+     * through the completion search (a step per candidate prefix of featureSize - 1 cards).
+     *
+     * @param cards - the distinct cards of the query.
+     * @return - true iff the query should use the index.
+     */
+    private boolean useIndex(int[] cards) {
+        if (index == null) return false;
+
+        double prefixes = 1;
+        for (int i = 0; i < config.featureSize - 1; ++i)
+            prefixes = prefixes * (cards.length - i) / (i + 1);
+        double passes = (double) (config.deckSize - cards.length) * SetIndex.words(index.size());
+        return passes < prefixes * config.featureCount;
+    }
+
+    private boolean isParallel(int[] cards) {
+        return config.parallelSearch && cards.length >= config.parallelSearchThreshold;
+    }
+
+    /**
+     * Walks over the sets whose lowest card is one of cards[from..to), in lexicographic order. The first
+     * featureSize - 1 cards of every candidate are enumerated (dropping a prefix as soon as one of its features is
+     * neither the same nor different in all its cards), and the last card is looked up in the presence index, since it
+     * is the only card that completes them to a set. Every set is found exactly once - by its lowest cards.
+     */
+    private class SetCursor {
+
+        private final int[] cards;
+        private final boolean[] present;
+        private int to;
+
+        /**
+         * index[d] is the position in cards of the d-th card of the current candidate.
+         */
+        private final int[] index;
+
+        /**
+         * The first featureSize - 1 cards of the current candidate.
+         */
+        private final int[] prefix;
+
+        /**
+         * seen[d][i] is a bit mask of the values of feature i among the first d cards of the current candidate.
+         */
+        private final int[][] seen;
+
+        /**
+         * The depth of the card to advance next (-1 once the walk is over).
+         */
+        private int depth;
+
+        private SetCursor(int[] cards, boolean[] present, int from, int to) {
+            this.cards = cards;
+            this.present = present;
+            this.to = to;
+            index = new int[config.featureSize - 1];
+            index[0] = from - 1;
+            prefix = new int[config.featureSize - 1];
+            seen = new int[config.featureSize][config.featureCount];
+        }
+
+        /**
+         * Advances to the next set.
+         *
+         * @param set - an array of featureSize cards to receive the set.
+         * @return - false iff there are no more sets.
+         */
+        private boolean next(int[] set) {
+            while (depth >= 0) {
+                int i = ++index[depth];
+                if (i >= (depth == 0 ? to : cards.length)) {
+                    --depth;
+                    continue;
+                }
+
+                int card = cards[i];
+                if (!extend(seen[depth], seen[depth + 1], card, depth + 1)) continue;
+                prefix[depth] = card;
+
+                if (depth + 2 < config.featureSize) {
+                    index[depth + 1] = i;
+                    ++depth;
+                    continue;
+                }
+
+                int last = completion(seen[depth + 1]);
+                if (last > card && present[last]) {
+                    System.arraycopy(prefix, 0, set, 0, prefix.length);
+                    set[prefix.length] = last;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return - the number of lowest cards that were not visited yet.
+         */
+        private int remaining() {
+            return depth < 0 ? 0 : to - index[0] - 1;
+        }
+
+        /**
+         * Hands the upper half of the lowest cards that were not visited yet to a new cursor.
+         *
+         * @return - the new cursor, or null if there is nothing to split.
+         */
+        private SetCursor split() {
+            if (remaining() < 2) return null;
+            int middle = (index[0] + 1 + to) >>> 1;
+            SetCursor upper = new SetCursor(cards, present, middle, to);
+            to = middle;
+            return upper;
+        }
+    }
+
+    /**
+     * A splittable lazy enumeration of sets (see SetCursor), each one a new array of sorted card ids.
+     */
+    private class SetSpliterator implements Spliterator<int[]> {
+
+        private final SetCursor cursor;
+
+        private SetSpliterator(SetCursor cursor) {
+            this.cursor = cursor;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super int[]> action) {
+            int[] set = new int[config.featureSize];
+            if (!cursor.next(set)) return false;
+            action.accept(set);
+            return true;
+        }
+
+        @Override
+        public Spliterator<int[]> trySplit() {
+            SetCursor upper = cursor.split();
+            return upper == null ? null : new SetSpliterator(upper);
+        }
+
+        @Override
+        public long estimateSize() {
+            return cursor.remaining();
+        }
+
+        @Override
+        public int characteristics() {
+            return DISTINCT | NONNULL;
+        }
+    }
+
+    /**
+     * Searches for sets whose lowest card is one of cards[from..to) on the fork-join pool. The range is split in
+     * halves until it is small enough, and all the tasks stop once count sets were found.
+     */
+    private class SearchTask extends RecursiveTask<List<int[]>> {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The number of lowest cards searched by a single task.
+         */
+        private static final int GRAIN = 8;
+
+        private final int[] cards;
+        private final boolean[] present;
+        private final int from;
+        private final int to;
+        private final int count;
+        private final AtomicInteger found;
+
+        private SearchTask(int[] cards, boolean[] present, int from, int to, int count, AtomicInteger found) {
+            this.cards = cards;
+            this.present = present;
+            this.from = from;
+            this.to = to;
+            this.count = count;
+            this.found = found;
+        }
+
+        @Override
+        protected List<int[]> compute() {
+            LinkedList<int[]> sets = new LinkedList<>();
+            if (found.get() >= count) return sets;
+
+            if (to - from > GRAIN) {
+                int middle = (from + to) >>> 1;
+                SearchTask low = new SearchTask(cards, present, from, middle, count, found);
+                low.fork();
+                sets.addAll(new SearchTask(cards, present, middle, to, count, found).compute());
+                sets.addAll(0, low.join());
+            } else {
+                SetCursor cursor = new SetCursor(cards, present, from, to);
+                for (int[] set = new int[config.featureSize]; found.get() < count && cursor.next(set); set = new int[config.featureSize])
+                    if (found.getAndIncrement() < count) sets.add(set);
+            }
+
+            while (sets.size() > count) sets.removeLast();
+            return sets;
+        }
+    }
+
+    /**
+     * Adds the features of a card to the feature masks of a partial set.
+     *
+     * @return - true iff every feature is still either the same or different in all the size cards.
+     */
+    private boolean extend(int[] before, int[] after, int card, int size) {
+        int[] cardFeatures = features[card];
+        for (int i = 0; i < cardFeatures.length; ++i) {
+            after[i] = before[i] | 1 << cardFeatures[i];
+            int values = Integer.bitCount(after[i]);
+            if (values != 1 && values != size) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Finds the only card that completes featureSize - 1 cards (with legal feature masks) to a set.
+     *
+     * @param seen - the feature masks of the partial set.
+     * @return - the card id.
+     */
+    private int completion(int[] seen) {
+        int card = 0;
+        for (int i = 0; i < seen.length; ++i) {
+            // a feature that is the same in all cards keeps its value, otherwise the missing value completes it
+            int value = Integer.bitCount(seen[i]) == 1 ? Integer.numberOfTrailingZeros(seen[i])
+                    : Integer.numberOfTrailingZeros(~seen[i]);
+            card += value * featureWeights[i];
+        }
+        return card;
+    }
+
+    private List<int[]> findSetsByCombinations(List<Integer> deck, int count) {
+        LinkedList<int[]> sets = new LinkedList<>();
+        int n = deck.size();
+        int r = config.featureSize;
+        int[] combination = new int[r];
+
+        for (int i = 0; i < r; ++i)
+            combination[i] = i;
+
+        while (combination[r - 1] < deck.size()) {
+            int[] cards = Arrays.stream(combination).map(deck::get).sorted().toArray();
+            if (testSet(cards)) {
+                sets.add(cards);
+                if (sets.size() >= count) return sets;
+            }
+
+            // generate next combination in lexicographic order
+            int t = r - 1;
+            while (t != 0 && combination[t] == n - r + t) --t;
+            combination[t]++;
+            for (int i = t + 1; i < r; i++) combination[i] = combination[i - 1] + 1;
+        }
+        return sets;
+    }
+
+    public void spin() {
+        if (config.randomSpinMax <= 0) return;
+        long cycles = ThreadLocalRandom.current().nextLong(config.randomSpinMin, config.randomSpinMax);
+        for (int i = 0; i < cycles; ++i)
+            Thread.yield();
+    }
+}
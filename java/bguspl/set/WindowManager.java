@@ -1,3 +1,5 @@
+package bguspl.set;
+
 import java.awt.event.WindowEvent;
 import java.awt.event.WindowListener;
 
@@ -0,0 +1,154 @@
+package bguspl.set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of the dealer's claim path. The player and dealer threads are not started: the tests press keys and apply them
+ * the way the dealer's events do, and serve a player's verdict the way the player thread does.
+ */
+class DealerTest {
+
+    private Env env;
+    private Table table;
+    private Dealer dealer;
+    private Player[] players;
+
+    @BeforeEach
+    void setup() {
+        Logger logger = Logger.getLogger("DealerTestLogger");
+        logger.setUseParentHandlers(false);
+        Properties properties = new Properties();
+        properties.setProperty("LogLevel", Level.OFF.getName());
+        properties.setProperty("HumanPlayers", "2");
+        properties.setProperty("ComputerPlayers", "0");
+        properties.setProperty("TurnTimeoutSeconds", "0");
+        properties.setProperty("TableDelaySeconds", "0");
+        Config config = new Config(logger, properties);
+        env = new Env(logger, config, new NoUserInterface(), new UtilImpl(config));
+
+        table = new Table(env);
+        players = new Player[config.players];
+        dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, true);
+    }
+
+    /**
+     * A player is penalized with three tokens, and a claim of another player then clears one of them. The card that
+     * completed the player's first two tokens is stale, so pressing it must not make a legal claim.
+     */
+    @Test
+    void staleCompletingCardIsNotTrusted() {
+        int[] slots = dealTwoSetsThroughOneCard();
+        int a = slots[0], b = slots[1], d = slots[2], x = slots[3], y = slots[4], c = slots[5];
+
+        press(0, a, b, c); //the first two tokens are completed by the card in d, not the one in c
+        assertEquals(0, players[0].myFreezeState, "the claim on " + a + ", " + b + ", " + c + " is not a set");
+        servePenalty(players[0]);
+
+        press(1, a, x, y);
+        assertTrue(dealer.checkSet(), "the claim of the other player is accepted");
+        assertFalse(table.hasToken(0, a), "the accepted claim cleared the token on its slot");
+        assertEquals(env.config.featureSize - 1, table.countTokens(0));
+
+        press(0, d); //b, c and d are not a set
+        assertEquals(0, players[0].myFreezeState, "the claim made with a stale completing card is penalized");
+        assertFalse(dealer.checkSet(), "no claim is held for the player");
+        assertEquals(0, players[0].score);
+    }
+
+    /**
+     * Deals tables until one has two sets that share a single card.
+     * @return - the slots a, b, d of one set and a, x, y of the other, and a slot c of neither.
+     */
+    private int[] dealTwoSetsThroughOneCard() {
+        int tableSize = env.config.tableSize;
+        for (int deal = 0; deal < 10_000; deal++) {
+            dealer.removeAllCardsFromTable();
+            dealer.placeCardOnEmptySlots();
+            for (int a = 0; a < tableSize; a++)
+                for (int b = 0; b < tableSize; b++) {
+                    int d = slotCompleting(a, b);
+                    if (b == a || d == Table.EMPTY) continue;
+                    for (int x = 0; x < tableSize; x++) {
+                        int y = slotCompleting(a, x);
+                        if (x == a || x == b || x == d || y == Table.EMPTY || y == b || y == d) continue;
+                        for (int c = 0; c < tableSize; c++)
+                            if (c != a && c != b && c != d && c != x && c != y) return new int[]{a, b, d, x, y, c};
+                    }
+                }
+        }
+        return fail("no table with two sets through one card was dealt");
+    }
+
+    /**
+     * @return - the slot of the card that completes the cards in two slots to a set, or EMPTY if it is not on the table.
+     */
+    private int slotCompleting(int first, int second) {
+        int card = env.util.completeSet(new int[]{table.cardAt(first), table.cardAt(second)});
+        return card == -1 ? Table.EMPTY : table.slotOf(card);
+    }
+
+    private void press(int player, int... slots) {
+        for (int slot : slots)
+            players[player].keyPressed(slot);
+        dealer.applyCommands();
+    }
+
+    private static void servePenalty(Player player) {
+        player.myFreezeState = -1;
+        player.readyForCheck = false;
+    }
+
+    /**
+     * A user interface that draws nothing.
+     */
+    private static class NoUserInterface implements UserInterface {
+
+        @Override
+        public void placeCard(int card, int slot) {}
+
+        @Override
+        public void removeCard(int slot) {}
+
+        @Override
+        public void placeToken(int player, int slot) {}
+
+        @Override
+        public void removeTokens() {}
+
+        @Override
+        public void removeTokens(int slot) {}
+
+        @Override
+        public void removeToken(int player, int slot) {}
+
+        @Override
+        public void setCountdown(long millies, boolean warn) {}
+
+        @Override
+        public void setElapsed(long millies) {}
+
+        @Override
+        public void setFreeze(int player, long millies) {}
+
+        @Override
+        public void setScore(int player, int score) {}
+
+        @Override
+        public void announceWinner(int[] players) {}
+
+        @Override
+        public void dispose() {}
+    }
+}
@@ -0,0 +1,120 @@
+package bguspl.set;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A naive reference of the set rules, for the tests of the set engine: the features of a card are worked out by
+ * division, a candidate is checked one feature and one pair of cards at a time, and sets are found by checking every
+ * combination of featureSize cards.
+ */
+final class ReferenceSets {
+
+    private final Config config;
+
+    ReferenceSets(Config config) {
+        this.config = config;
+    }
+
+    /**
+     * @param settings - more properties, as name and value pairs.
+     * @return - a configuration of a deck with logging off.
+     */
+    static Config config(int featureSize, int featureCount, String... settings) {
+        Logger logger = Logger.getLogger("ReferenceSetsLogger");
+        logger.setUseParentHandlers(false);
+        Properties properties = new Properties();
+        for (int i = 0; i + 1 < settings.length; i += 2)
+            properties.setProperty(settings[i], settings[i + 1]);
+        properties.setProperty("LogLevel", Level.OFF.getName());
+        properties.setProperty("FeatureSize", Integer.toString(featureSize));
+        properties.setProperty("FeatureCount", Integer.toString(featureCount));
+        return new Config(logger, properties);
+    }
+
+    /**
+     * @return - the value of feature i of a card (feature 0 is the most significant digit of the card id).
+     */
+    int feature(int card, int i) {
+        for (int j = config.featureCount - 1; j > i; --j)
+            card /= config.featureSize;
+        return card % config.featureSize;
+    }
+
+    /**
+     * @param cards - distinct card ids.
+     * @return - true iff every feature is either the same in all the cards or different in all of them.
+     */
+    boolean testSet(int[] cards) {
+        for (int i = 0; i < config.featureCount; ++i) {
+            boolean same = true, different = true;
+            for (int j = 0; j < cards.length; ++j)
+                for (int k = j + 1; k < cards.length; ++k)
+                    if (feature(cards[j], i) == feature(cards[k], i)) different = false;
+                    else same = false;
+            if (!same && !different) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param cards - an array whose first featureSize - 1 entries are distinct card ids.
+     * @return - the lowest card of the deck that completes them to a legal set, or -1 if there is none.
+     */
+    int completeSet(int[] cards) {
+        int[] candidate = Arrays.copyOf(cards, config.featureSize);
+        for (int card = 0; card < config.deckSize; ++card) {
+            boolean taken = false;
+            for (int i = 0; i < config.featureSize - 1; ++i)
+                taken |= cards[i] == card;
+            candidate[config.featureSize - 1] = card;
+            if (!taken && testSet(candidate)) return card;
+        }
+        return -1;
+    }
+
+    /**
+     * @param cards - distinct card ids, in increasing order.
+     * @return - every legal set among the cards, each one sorted, in lexicographic order.
+     */
+    List<int[]> findSets(int[] cards) {
+        List<int[]> sets = new ArrayList<>();
+        int r = config.featureSize;
+        if (cards.length < r) return sets;
+        int[] combination = new int[r];
+        for (int i = 0; i < r; ++i)
+            combination[i] = i;
+        while (true) {
+            int[] set = new int[r];
+            for (int i = 0; i < r; ++i)
+                set[i] = cards[combination[i]];
+            if (testSet(set)) sets.add(set);
+
+            int t = r - 1;
+            while (t >= 0 && combination[t] == cards.length - r + t) --t;
+            if (t < 0) return sets;
+            combination[t]++;
+            for (int i = t + 1; i < r; ++i)
+                combination[i] = combination[i - 1] + 1;
+        }
+    }
+
+    /**
+     * @param sets - sets of cards.
+     * @return - the sets, each one sorted, in lexicographic order (the sets are copied).
+     */
+    static int[][] sorted(List<int[]> sets) {
+        int[][] copies = new int[sets.size()][];
+        int i = 0;
+        for (int[] set : sets) { //the engine returns linked lists
+            copies[i] = set.clone();
+            Arrays.sort(copies[i++]);
+        }
+        Arrays.sort(copies, Arrays::compare);
+        return copies;
+    }
+}
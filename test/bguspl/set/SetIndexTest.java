@@ -0,0 +1,73 @@
+package bguspl.set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Tests of the set index and of the closed form of the number of sets in a deck, against the sets enumerated by the
+ * naive reference of the set rules (see ReferenceSets).
+ */
+class SetIndexTest {
+
+    @ParameterizedTest(name = "featureSize {0}, featureCount {1}")
+    @CsvSource({"2, 1", "2, 4", "3, 1", "3, 2", "3, 3", "3, 4", "4, 1", "4, 2", "4, 3", "5, 2"})
+    void countSetsMatchesEnumeration(int featureSize, int featureCount) {
+        Config config = ReferenceSets.config(featureSize, featureCount);
+        int[] deck = new int[config.deckSize];
+        for (int card = 0; card < deck.length; ++card)
+            deck[card] = card;
+        int expected = new ReferenceSets(config).findSets(deck).size();
+
+        assertEquals(expected, SetIndex.countSets(config), 1e-6, "the closed form");
+        assertEquals(expected, new SetIndex(config, new UtilImpl(config)).size(), "the sets of the index");
+    }
+
+    /**
+     * The live sets of random collections of cards (from a few cards to the whole deck), and of an empty bitmap with no
+     * words.
+     */
+    @ParameterizedTest(name = "featureSize {0}, featureCount {1}")
+    @CsvSource({"2, 4", "3, 2", "3, 3", "3, 4", "4, 2", "4, 3", "5, 2"})
+    void liveSetsMatchEnumeration(int featureSize, int featureCount) {
+        Config config = ReferenceSets.config(featureSize, featureCount);
+        ReferenceSets reference = new ReferenceSets(config);
+        SetIndex index = new SetIndex(config, new UtilImpl(config));
+        Random random = new Random(31L * featureSize + featureCount);
+
+        assertEquals(0, index.countSets(new long[0]), "the sets of no cards");
+        for (double density : new double[]{0.05, 0.3, 0.6, 0.9, 1}) {
+            long[] bits = new long[SetIndex.words(config.deckSize)];
+            List<Integer> cards = new ArrayList<>();
+            for (int card = 0; card < config.deckSize; ++card)
+                if (random.nextDouble() < density) {
+                    bits[card >>> 6] |= 1L << card;
+                    cards.add(card);
+                }
+            int[][] expected = ReferenceSets.sorted(reference.findSets(cards.stream().mapToInt(Integer::intValue)
+                    .toArray()));
+
+            List<int[]> live = new ArrayList<>();
+            long[] liveSets = index.liveSets(bits);
+            for (int word = 0; word < liveSets.length; ++word)
+                for (long set = liveSets[word]; set != 0; set &= set - 1) {
+                    int[] buffer = new int[featureSize];
+                    index.set(word * Long.SIZE + Long.numberOfTrailingZeros(set), buffer);
+                    live.add(buffer);
+                }
+            assertArrayEquals(expected, ReferenceSets.sorted(live), "the live sets of " + cards);
+            assertEquals(expected.length, index.countSets(bits), "the number of live sets of " + cards);
+            assertEquals(expected.length > 0, index.anySet(bits), "a live set of " + cards);
+
+            List<int[]> visited = new ArrayList<>();
+            index.forEachSet(bits, new int[featureSize], set -> visited.add(set.clone()));
+            assertArrayEquals(expected, ReferenceSets.sorted(visited), "the sets visited in " + cards);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package bguspl.set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Tests of the set engine against the naive reference of the set rules (see ReferenceSets), on decks of featureSize 2,
+ * 3 and 4 with several feature counts.
+ */
+class UtilImplTest {
+
+    private Config config;
+    private Util util;
+    private ReferenceSets reference;
+    private Random random;
+
+    private void setup(int featureSize, int featureCount, String... settings) {
+        config = ReferenceSets.config(featureSize, featureCount, settings);
+        util = new UtilImpl(config);
+        reference = new ReferenceSets(config);
+        random = new Random(31L * featureSize + featureCount);
+    }
+
+    @ParameterizedTest(name = "featureSize {0}, featureCount {1}")
+    @CsvSource({"2, 1", "2, 3", "2, 5", "3, 1", "3, 2", "3, 4", "4, 1", "4, 2", "4, 3"})
+    void testSetMatchesReference(int featureSize, int featureCount) {
+        setup(featureSize, featureCount);
+        for (int i = 0; i < 20_000; ++i) {
+            int[] cards = toArray(randomDeck(featureSize));
+            assertEquals(reference.testSet(cards), util.testSet(cards), Arrays.toString(cards));
+        }
+
+        // legal sets are rare among random candidates, so every set of a part of the deck is checked too
+        for (int[] set : reference.findSets(sortedArray(randomDeck(40))))
+            assertTrue(util.testSet(set), Arrays.toString(set));
+    }
+
+    @ParameterizedTest(name = "featureSize {0}, featureCount {1}")
+    @CsvSource({"2, 1", "2, 3", "2, 5", "3, 1", "3, 2", "3, 4", "4, 1", "4, 2", "4, 3"})
+    void completeSetMatchesReference(int featureSize, int featureCount) {
+        setup(featureSize, featureCount);
+        for (int i = 0; i < 5_000; ++i) {
+            int[] cards = toArray(randomDeck(featureSize - 1));
+            // with less than 3 cards per set any card completes the others, so none is returned
+            int expected = featureSize < 3 ? -1 : reference.completeSet(cards);
+            assertEquals(expected, util.completeSet(cards), Arrays.toString(cards));
+        }
+
+        if (featureSize < 3) return;
+        for (int[] set : reference.findSets(sortedArray(randomDeck(40))))
+            assertEquals(set[featureSize - 1], util.completeSet(Arrays.copyOf(set, featureSize - 1)),
+                    Arrays.toString(set));
+    }
+
+    @ParameterizedTest(name = "featureSize {0}, featureCount {1}")
+    @CsvSource({"2, 1", "2, 3", "2, 5", "3, 1", "3, 2", "3, 4", "4, 1", "4, 2", "4, 3"})
+    void findSetsMatchesReference(int featureSize, int featureCount) {
+        setup(featureSize, featureCount);
+        // the whole deck, decks of fewer cards than a set, and parts of the deck
+        for (int size : new int[]{config.deckSize, 0, 1, featureSize - 1, featureSize, 12, 40}) {
+            List<Integer> deck = randomDeck(size);
+            int[][] expected = ReferenceSets.sorted(reference.findSets(sortedArray(deck)));
+            assertArrayEquals(expected, ReferenceSets.sorted(util.findSets(deck, Integer.MAX_VALUE)),
+                    "the sets of " + deck);
+
+            // a search for fewer sets than there are stops early, with sets of the deck
+            Set<String> legal = Arrays.stream(expected).map(Arrays::toString).collect(Collectors.toSet());
+            int[][] some = ReferenceSets.sorted(util.findSets(deck, 2));
+            assertEquals(Math.min(2, expected.length), some.length, "the number of sets found in " + deck);
+            for (int[] set : some)
+                assertTrue(legal.contains(Arrays.toString(set)), Arrays.toString(set) + " is a set of " + deck);
+        }
+    }
+
+    /**
+     * The parallel search (the fork-join tasks of findSets, and the split spliterators of streamSets and countSets)
+     * against the sequential one, on decks of at least ParallelSearchThreshold cards (and one card fewer). The set
+     * index is off, so countSets searches too.
+     */
+    @ParameterizedTest(name = "featureSize {0}, featureCount {1}")
+    @CsvSource({"3, 5", "3, 6", "4, 4"})
+    void parallelSearchMatchesSequential(int featureSize, int featureCount) {
+        setup(featureSize, featureCount, "ParallelSearch", "True", "SetIndexMaxMegabytes", "0");
+        Util sequential = new UtilImpl(ReferenceSets.config(featureSize, featureCount, "ParallelSearch", "False",
+                "SetIndexMaxMegabytes", "0"));
+
+        int threshold = config.parallelSearchThreshold;
+        assertTrue(config.deckSize >= threshold, "the deck crosses the parallel search threshold");
+        for (int size : new int[]{config.deckSize, threshold, threshold - 1}) {
+            List<Integer> deck = randomDeck(size);
+            int[][] expected = ReferenceSets.sorted(sequential.findSets(deck, Integer.MAX_VALUE));
+            assertTrue(expected.length > 0, "the deck of " + size + " cards has sets");
+
+            assertArrayEquals(expected, ReferenceSets.sorted(util.findSets(deck, Integer.MAX_VALUE)),
+                    "findSets on " + size + " cards");
+            assertArrayEquals(expected, ReferenceSets.sorted(util.streamSets(deck, true).collect(Collectors.toList())),
+                    "a parallel stream on " + size + " cards");
+            assertArrayEquals(expected, ReferenceSets.sorted(util.streamSets(deck, false).collect(Collectors.toList())),
+                    "a sequential stream on " + size + " cards");
+            assertEquals(expected.length, util.countSets(deck), "countSets on " + size + " cards");
+            assertEquals(expected.length, sequential.countSets(deck), "sequential countSets on " + size + " cards");
+
+            // the tasks stop together once enough sets were found
+            Set<String> legal = Arrays.stream(expected).map(Arrays::toString).collect(Collectors.toSet());
+            int[][] some = ReferenceSets.sorted(util.findSets(deck, 100));
+            assertEquals(Math.min(100, expected.length), some.length, "the number of sets found in " + size + " cards");
+            for (int i = 0; i < some.length; ++i) {
+                assertTrue(legal.contains(Arrays.toString(some[i])), Arrays.toString(some[i]) + " is a set");
+                assertTrue(i == 0 || !Arrays.equals(some[i - 1], some[i]), Arrays.toString(some[i]) + " is found once");
+            }
+
+            // a spliterator split after a few sets were taken, and every part split again down to single cards
+            Spliterator<int[]> spliterator = util.spliterateSets(deck);
+            List<int[]> sets = new ArrayList<>();
+            for (int i = 0; i < 10; ++i)
+                spliterator.tryAdvance(sets::add);
+            splitAndDrain(spliterator, sets);
+            assertArrayEquals(expected, ReferenceSets.sorted(sets), "the split spliterators on " + size + " cards");
+        }
+    }
+
+    /**
+     * Splits a spliterator until it cannot be split, and takes the sets of all the parts.
+     */
+    private static void splitAndDrain(Spliterator<int[]> spliterator, List<int[]> sets) {
+        Spliterator<int[]> upper = spliterator.trySplit();
+        if (upper != null) {
+            splitAndDrain(upper, sets);
+            splitAndDrain(spliterator, sets);
+        } else spliterator.forEachRemaining(sets::add);
+    }
+
+    /**
+     * The bulk verdicts of an array and of heap, sliced and direct buffers at a non-zero position, for counts that are
+     * and are not multiples of 64.
+     */
+    @ParameterizedTest(name = "featureSize {0}, featureCount {1}")
+    @CsvSource({"2, 1", "2, 3", "2, 5", "3, 1", "3, 2", "3, 4", "4, 1", "4, 2", "4, 3"})
+    void testSetsMatchesReference(int featureSize, int featureCount) {
+        setup(featureSize, featureCount);
+        int maxCount = 200, position = 7;
+        // half of the candidates are sets of a part of the deck, so both verdicts are common
+        List<int[]> sets = reference.findSets(sortedArray(randomDeck(40)));
+        int[] candidates = new int[maxCount * featureSize];
+        boolean[] legal = new boolean[maxCount];
+        for (int c = 0; c < maxCount; ++c) {
+            int[] cards = c % 2 == 0 && !sets.isEmpty() ? sets.get(random.nextInt(sets.size()))
+                    : toArray(randomDeck(featureSize));
+            System.arraycopy(cards, 0, candidates, c * featureSize, featureSize);
+            legal[c] = reference.testSet(cards);
+        }
+
+        // the entries before the position are not card ids, so reading them fails
+        int[] shifted = new int[position + candidates.length];
+        Arrays.fill(shifted, 0, position, -1);
+        System.arraycopy(candidates, 0, shifted, position, candidates.length);
+        IntBuffer direct = ByteBuffer.allocateDirect(shifted.length * Integer.BYTES).order(ByteOrder.nativeOrder())
+                .asIntBuffer().put(shifted);
+
+        for (int count : new int[]{0, 1, 63, 64, 65, 130, maxCount}) {
+            long[] verdicts = new long[SetIndex.words(count) + 1];
+            assertVerdicts("an array", legal, count, verdicts, util.testSets(candidates, count, verdicts));
+
+            IntBuffer heap = IntBuffer.wrap(shifted).position(position);
+            assertVerdicts("a heap buffer", legal, count, verdicts, util.testSets(heap, count, verdicts));
+            assertEquals(position, heap.position(), "the position of the buffer is not changed");
+
+            IntBuffer slice = IntBuffer.wrap(shifted).position(position - 2).slice().position(2);
+            assertVerdicts("a sliced buffer", legal, count, verdicts, util.testSets(slice, count, verdicts));
+
+            direct.position(position);
+            assertVerdicts("a direct buffer", legal, count, verdicts, util.testSets(direct, count, verdicts));
+            assertEquals(position, direct.position(), "the position of the buffer is not changed");
+        }
+    }
+
+    /**
+     * Checks the verdicts of count candidates, and that no bit is set after the last one. The verdicts are then filled
+     * with set bits, so the next check sees only the bits it wrote.
+     */
+    private static void assertVerdicts(String candidates, boolean[] legal, int count, long[] verdicts, int legalCount) {
+        int expected = 0;
+        for (int c = 0; c < count; ++c) {
+            if (legal[c]) ++expected;
+            assertEquals(legal[c], (verdicts[c >>> 6] & 1L << c) != 0, "the verdict of candidate " + c + " of "
+                    + count + " in " + candidates);
+        }
+        assertEquals(expected, legalCount, "the number of sets among " + count + " candidates in " + candidates);
+        if (count % Long.SIZE != 0)
+            assertFalse((verdicts[count >>> 6] & -1L << count) != 0, "no verdict after the last of " + count
+                    + " candidates in " + candidates);
+        Arrays.fill(verdicts, -1L);
+    }
+
+    /**
+     * @param size - the number of cards (at most the size of the deck).
+     * @return - distinct random cards of the deck, in random order.
+     */
+    private List<Integer> randomDeck(int size) {
+        List<Integer> deck = new ArrayList<>(config.deckSize);
+        for (int card = 0; card < config.deckSize; ++card)
+            deck.add(card);
+        Collections.shuffle(deck, random);
+        return new ArrayList<>(deck.subList(0, Math.min(size, deck.size())));
+    }
+
+    private static int[] toArray(List<Integer> cards) {
+        return cards.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int[] sortedArray(List<Integer> cards) {
+        return cards.stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+}